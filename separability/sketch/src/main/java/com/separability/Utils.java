@@ -4,7 +4,9 @@ import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.Set;
 
+import com.separability.geometry.Chirotope;
 import com.separability.geometry.Line;
+import com.separability.geometry.Orientation;
 import com.separability.geometry.Point;
 import com.separability.geometry.PointSet;
 import com.separability.geometry.PointSetFamily;
@@ -13,37 +15,28 @@ import processing.core.PApplet;
 import processing.core.PVector;
 
 public class Utils {
-    public static float[] linesToShader(ArrayList<Line> lines) {
-        float[] shaderLines = new float[2 * lines.size()];
-        int index = 0;
-        for (Line lne : lines) {
-            PVector lneShader = lne.shaderFormat();
-            shaderLines[index] = lneShader.x;
-            shaderLines[index + 1] = lneShader.y;
-            index += 2;
-        }
-        return shaderLines;
-    }
-
     // returns true if s is in triangle (a,b,c)
     public static boolean inTriangle(PVector s, PVector a, PVector b, PVector c) {
-        // adapted from: https://stackoverflow.com/a/9755252
-        float as_x = s.x - a.x;
-        float as_y = s.y - a.y;
+        return inTriangle(s.x, s.y, a.x, a.y, b.x, b.y, c.x, c.y);
+    }
 
-        boolean s_ab = (b.x - a.x) * as_y - (b.y - a.y) * as_x > 0;
+    public static boolean inTriangle(Point s, Point a, Point b, Point c) {
+        return inTriangle(s.x, s.y, a.x, a.y, b.x, b.y, c.x, c.y);
+    }
 
-        if ((c.x - a.x) * as_y - (c.y - a.y) * as_x > 0 == s_ab)
+    public static boolean inTriangle(float sx, float sy, float ax, float ay, float bx, float by, float cx,
+            float cy) {
+        // adapted from: https://stackoverflow.com/a/9755252
+        // the three side tests are exact orientation predicates
+        boolean s_ab = Orientation.orient(ax, ay, bx, by, sx, sy) > 0;
+
+        if (Orientation.orient(ax, ay, cx, cy, sx, sy) > 0 == s_ab)
             return false;
-        if ((c.x - b.x) * (s.y - b.y) - (c.y - b.y) * (s.x - b.x) > 0 != s_ab)
+        if (Orientation.orient(bx, by, cx, cy, sx, sy) > 0 != s_ab)
             return false;
         return true;
     }
 
-    public static boolean inTriangle(Point s, Point a, Point b, Point c) {
-        return inTriangle(new PVector(s.x, s.y), new PVector(a.x, a.y), new PVector(b.x, b.y), new PVector(c.x, c.y));
-    }
-
     // returns the intersection point of the line segments defined by (p0-p1) and
     // (p2-p3)
     // null if no intersection
@@ -71,14 +64,35 @@ public class Utils {
         if (i == null) {
             return null;
         }
-        return new Point(p0.getSketch(), i.x, i.y);
+        return new Point(i.x, i.y);
+    }
+
+    public static boolean isCaratheodory(PointSet all, long sub) {
+        // sub is given as mask of all (see Subsets), the complement is built from the
+        // mask as well (the points of compact subsets are new objects)
+        return caratheodory(all.subset(sub), all.subset(~sub & full(all)), null);
     }
 
     public static boolean isCaratheodory(PointSet all, PointSet sub) {
+        return isCaratheodory(all, sub, null);
+    }
+
+    public static boolean isCaratheodory(PointSet all, PointSet sub, PApplet sketch) {
+        // if sketch is not null, the found partition is highlighted on the sketch
         PointSet comp = new PointSet(all);
         for (Point p : sub) {
             comp.remove(p);
         }
+        return caratheodory(sub, comp, sketch);
+    }
+
+    private static long full(PointSet all) {
+        // the mask of all points of all
+        return all.size() == 64 ? -1L : (1L << all.size()) - 1;
+    }
+
+    private static boolean caratheodory(PointSet sub, PointSet comp, PApplet sketch) {
+        // isCaratheodory for a subset and its complement
         if (sub.size() != 3) {
             PointSet temp = comp;
             comp = sub;
@@ -112,18 +126,20 @@ public class Utils {
                     // Triangle 2: second, q1, q2
 
                     if (inTriangle(last, first, p1, p2) && inTriangle(last, second, q1, q2)) {
-                        PApplet p = p1.getSketch();
-                        p.noFill();
-                        p.stroke(255, 0, 0);
-                        p.strokeWeight(3);
-                        p.circle(first.x, first.y, 30);
-                        p.circle(p1.x, p1.y, 30);
-                        p.circle(p2.x, p2.y, 30);
-
-                        p.stroke(0, 255, 0);
-                        p.circle(second.x, second.y, 30);
-                        p.circle(q1.x, q1.y, 30);
-                        p.circle(q2.x, q2.y, 30);
+                        if (sketch == null) {
+                            return true;
+                        }
+                        sketch.noFill();
+                        sketch.stroke(255, 0, 0);
+                        sketch.strokeWeight(3);
+                        sketch.circle(first.x, first.y, 30);
+                        sketch.circle(p1.x, p1.y, 30);
+                        sketch.circle(p2.x, p2.y, 30);
+
+                        sketch.stroke(0, 255, 0);
+                        sketch.circle(second.x, second.y, 30);
+                        sketch.circle(q1.x, q1.y, 30);
+                        sketch.circle(q2.x, q2.y, 30);
 
                         return true;
                     }
@@ -159,21 +175,23 @@ public class Utils {
                     Point isctn = segmentIntersection(first, q1, second, q2);
 
                     if (isctn != null && inTriangle(isctn, last, p1, p2)) {
-                        PApplet p = p1.getSketch();
-                        p.noFill();
-                        p.stroke(255, 0, 0);
-                        p.strokeWeight(3);
-                        p.circle(last.x, last.y, 30);
-                        p.circle(p1.x, p1.y, 30);
-                        p.circle(p2.x, p2.y, 30);
-
-                        p.stroke(0, 255, 0);
-                        p.circle(first.x, first.y, 30);
-                        p.circle(q1.x, q1.y, 30);
-
-                        p.stroke(255, 255, 0);
-                        p.circle(second.x, second.y, 30);
-                        p.circle(q2.x, q2.y, 30);
+                        if (sketch == null) {
+                            return true;
+                        }
+                        sketch.noFill();
+                        sketch.stroke(255, 0, 0);
+                        sketch.strokeWeight(3);
+                        sketch.circle(last.x, last.y, 30);
+                        sketch.circle(p1.x, p1.y, 30);
+                        sketch.circle(p2.x, p2.y, 30);
+
+                        sketch.stroke(0, 255, 0);
+                        sketch.circle(first.x, first.y, 30);
+                        sketch.circle(q1.x, q1.y, 30);
+
+                        sketch.stroke(255, 255, 0);
+                        sketch.circle(second.x, second.y, 30);
+                        sketch.circle(q2.x, q2.y, 30);
 
                         return true;
                     }
@@ -186,27 +204,40 @@ public class Utils {
 
     public static Set<ArrayList<Integer>> computeThreeStabbers(PointSetFamily psf) {
         // Returns sorted triplets (ArrayList<Integer>) of indices
+        // the sides of the points are looked up in the chirotope of the family (if it
+        // is small enough to have one)
         Set<ArrayList<Integer>> stabbers = new HashSet<ArrayList<Integer>>();
+        Chirotope chi = psf.chirotope();
         for (int i = 0; i < psf.size(); i++) {
             for (int j = i + 1; j < psf.size(); j++) {
                 PointSet ps1 = psf.get(i);
                 PointSet ps2 = psf.get(j);
 
                 // build all lines going through a point in ps1 and one in ps2
-                for (Point p1 : ps1) {
-                    for (Point p2 : ps2) {
+                for (int a = 0; a < ps1.size(); a++) {
+                    for (int b = 0; b < ps2.size(); b++) {
+                        Point p1 = ps1.get(a);
+                        Point p2 = ps2.get(b);
                         if (p1 == p2) {
                             continue; // should actually not happen, but does not hurt
                         }
 
-                        Line possStabber = new Line(p1, p2);
+                        Line possStabber = chi == null ? new Line(p1, p2) : null;
+                        int id1 = chi == null ? -1 : psf.offset(i) + a;
+                        int id2 = chi == null ? -1 : psf.offset(j) + b;
                         // now check if a third pointset is intersected
                         for (int k = 0; k < psf.size(); k++) {
                             if (i == k || j == k) {
                                 continue;
                             }
-                            PointSet ps3 = psf.get(k);
-                            if (ps3.countPointsBelow(possStabber) > 0 && ps3.countPointsAbove(possStabber) > 0) {
+                            boolean stabs;
+                            if (chi != null) {
+                                stabs = stabs(chi, id1, id2, psf.offset(k), psf.offset(k + 1));
+                            } else {
+                                PointSet ps3 = psf.get(k);
+                                stabs = ps3.countPointsBelow(possStabber) > 0 && ps3.countPointsAbove(possStabber) > 0;
+                            }
+                            if (stabs) {
                                 // actually a stabber, add new sorted list of indices
                                 // i<j by for loops, lets see where k is
                                 ArrayList<Integer> stabber = new ArrayList<Integer>();
@@ -235,11 +266,35 @@ public class Utils {
         return stabbers;
     }
 
+    private static boolean stabs(Chirotope chi, int id1, int id2, int from, int to) {
+        // returns true if the line through id1 and id2 has points with indices in
+        // [from, to) on both (closed) sides
+        boolean below = false;
+        boolean above = false;
+        for (int id = from; id < to; id++) {
+            int side = chi.sign(id1, id2, id);
+            below |= side >= 0;
+            above |= side <= 0;
+        }
+        return below && above;
+    }
+
+    public static boolean isTverberg(PointSet all, long sub) {
+        // sub is given as mask of all (see Subsets), the complement is built from the
+        // mask as well (the points of compact subsets are new objects)
+        return tverberg(all.subset(sub), all.subset(~sub & full(all)));
+    }
+
     public static boolean isTverberg(PointSet all, PointSet sub) {
         PointSet comp = new PointSet(all);
         for (Point p : sub) {
             comp.remove(p);
         }
+        return tverberg(sub, comp);
+    }
+
+    private static boolean tverberg(PointSet sub, PointSet comp) {
+        // isTverberg for a subset and its complement
         if (sub.size() != 3) {
             PointSet temp = comp;
             comp = sub;
@@ -327,43 +382,4 @@ public class Utils {
                 + PApplet.nf(PApplet.hour(), 2) + "-" + PApplet.nf(PApplet.minute(), 2) + "-"
                 + PApplet.nf(PApplet.second(), 2);
     }
-
-    public static boolean isZero(float x, float eps) {
-        return Math.abs(x) < eps;
-    }
-
-    public static float det3x3(float[][] A) {
-        if (A.length != 3) {
-            return 0f;
-        }
-        if (A[0].length != 3) {
-            return 0f;
-        }
-        float first = A[0][0] * (A[1][1] * A[2][2] - A[1][2] * A[2][1]);
-        float second = A[0][1] * (A[1][0] * A[2][2] - A[1][2] * +A[2][0]);
-        float third = A[0][2] * (A[1][0] * A[2][1] - A[1][1] * A[2][0]);
-        return first - second + third;
-    }
-
-    public static boolean rightTurn(float x1, float x2, float y1, float y2, float z1, float z2, float eps) {
-        float det = det3x3(new float[][] { { 1, x1, x2 }, { 1, y1, y2 }, { 1, z1, z2 } });
-        if (isZero(det, eps)) {
-            return false;
-        }
-        if (det > 0) {
-            return true;
-        }
-        return false;
-    }
-
-    public static boolean leftTurn(float x1, float x2, float y1, float y2, float z1, float z2, float eps) {
-        float det = det3x3(new float[][] { { 1, x1, x2 }, { 1, y1, y2 }, { 1, z1, z2 } });
-        if (isZero(det, eps)) {
-            return false;
-        }
-        if (det < 0) {
-            return true;
-        }
-        return false;
-    }
 }
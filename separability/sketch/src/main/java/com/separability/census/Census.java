@@ -0,0 +1,200 @@
+package com.separability.census;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.BitSet;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import com.separability.geometry.Canvas;
+import com.separability.geometry.PointSet;
+import com.separability.geometry.PointSetReader;
+
+/**
+ * Headless census of 2-separability over the order type database (the
+ * non-interactive version of SepSketch).
+ * The records are split into shards of consecutive indices (see
+ * PointSetReader.slice), the shards are evaluated on a pool of worker threads
+ * and their summaries are merged as they complete. Every point set is
+ * evaluated with PointSet.nonTwoSeparableMasks, i.e. the subsets of
+ * getNonTwoSeparable as masks, without creating them.
+ * With a checkpoint file (see setCheckpoint) the completed shards and the
+ * merged summary are saved periodically, a census started with an existing
+ * checkpoint only evaluates the remaining shards, so no record is skipped or
+ * counted twice.
+ * Run as 'java com.separability.census.Census otypesdd.bxx [threads]
+ * [shard size] [checkpoint]', progress is printed to stdout.
+ */
+public class Census {
+
+    private final PointSetReader reader;
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private long shardSize = 10000;
+    private int exampleLimit = 1000;
+    private Path checkpoint = null;
+    private long checkpointInterval = 60000; // milliseconds
+
+    public interface Progress {
+        // receives the merged summary after every completed shard, called from the
+        // thread running the census
+        void update(long done, long total, CensusSummary summary);
+    }
+
+    public Census(PointSetReader reader) {
+        this.reader = reader;
+    }
+
+    public void setThreads(int threads) {
+        this.threads = threads;
+    }
+
+    public void setShardSize(long shardSize) {
+        this.shardSize = shardSize;
+    }
+
+    public void setExampleLimit(int exampleLimit) {
+        // number of point sets whose non-2-separable subsets are kept
+        this.exampleLimit = exampleLimit;
+    }
+
+    public void setCheckpoint(Path checkpoint, long intervalMillis) {
+        // saves the progress to the checkpoint file at most every intervalMillis (and
+        // when the census is complete), an existing checkpoint is resumed by run
+        this.checkpoint = checkpoint;
+        this.checkpointInterval = intervalMillis;
+    }
+
+    private static class Shard {
+        // summary of the shard with the given index
+        final int index;
+        final CensusSummary summary;
+
+        Shard(int index, CensusSummary summary) {
+            this.index = index;
+            this.summary = summary;
+        }
+    }
+
+    public CensusSummary run(Progress progress) throws InterruptedException, IOException {
+        // evaluates all records of the reader (that are not done according to the
+        // checkpoint), progress may be null
+        long total = reader.size();
+        int shards = (int) ((total + shardSize - 1) / shardSize);
+        BitSet done = new BitSet(shards);
+        CensusSummary summary = new CensusSummary(exampleLimit);
+        if (checkpoint != null) {
+            try (DataInputStream in = Checkpoint.open(checkpoint, "census")) {
+                if (in != null) {
+                    if (in.readLong() != total || in.readLong() != shardSize) {
+                        throw new IOException(checkpoint + " is a checkpoint of another census");
+                    }
+                    long[] words = new long[in.readInt()];
+                    for (int w = 0; w < words.length; w++) {
+                        words[w] = in.readLong();
+                    }
+                    done = BitSet.valueOf(words);
+                    summary = CensusSummary.read(in);
+                }
+            }
+        }
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            CompletionService<Shard> completion = new ExecutorCompletionService<Shard>(pool);
+            int submitted = 0;
+            for (int s = done.nextClearBit(0); s < shards; s = done.nextClearBit(s + 1)) {
+                int shard = s;
+                long from = s * shardSize;
+                long to = Math.min(total, from + shardSize);
+                completion.submit(() -> new Shard(shard, evaluate(reader.slice(from, to), from, exampleLimit)));
+                submitted += 1;
+            }
+            long lastSaved = System.currentTimeMillis();
+            for (int s = 0; s < submitted; s++) {
+                Shard shard;
+                try {
+                    shard = completion.take().get();
+                } catch (ExecutionException e) {
+                    throw new IllegalStateException("census shard failed", e.getCause());
+                }
+                summary.merge(shard.summary);
+                done.set(shard.index);
+                long now = System.currentTimeMillis();
+                if (checkpoint != null && (now - lastSaved >= checkpointInterval || s == submitted - 1)) {
+                    save(done, summary);
+                    lastSaved = now;
+                }
+                if (progress != null) {
+                    progress.update(summary.getPointSets(), total, summary);
+                }
+            }
+            return summary;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private void save(BitSet done, CensusSummary summary) throws IOException {
+        // the checkpoint identifies the census by its number of records and shard size
+        Checkpoint.save(checkpoint, "census", out -> {
+            out.writeLong(reader.size());
+            out.writeLong(shardSize);
+            long[] words = done.toLongArray();
+            out.writeInt(words.length);
+            for (long word : words) {
+                out.writeLong(word);
+            }
+            summary.write(out);
+        });
+    }
+
+    static CensusSummary evaluate(PointSetReader shard, long offset, int exampleLimit) {
+        // summary of the records of a shard, whose first record has index offset
+        CensusSummary summary = new CensusSummary(exampleLimit);
+        for (PointSet pntSet = shard.nextPointSet(); pntSet != null; pntSet = shard.nextPointSet()) {
+            summary.add(offset + shard.position() - 1, pntSet.nonTwoSeparableMasks());
+        }
+        return summary;
+    }
+
+    public static void main(String[] args) throws InterruptedException, IOException {
+        if (args.length < 1) {
+            System.out.println("usage: Census otypesdd.bxx [threads] [shard size] [checkpoint]");
+            return;
+        }
+        Census census = new Census(new PointSetReader(new Canvas(1000, 1000), args[0]));
+        if (args.length > 1) {
+            census.setThreads(Integer.parseInt(args[1]));
+        }
+        if (args.length > 2) {
+            census.setShardSize(Long.parseLong(args[2]));
+        }
+        if (args.length > 3) {
+            census.setCheckpoint(Path.of(args[3]), 60000);
+        }
+        // the rate is measured from the first update of this process, after a resume
+        // the sets of the checkpoint were not evaluated by it
+        long[] start = { 0, 0 }; // time and sets done at the first update
+        long[] lastReport = { 0 };
+        CensusSummary summary = census.run((done, total, soFar) -> {
+            // at most one line every 10 seconds (and the last one)
+            long now = System.currentTimeMillis();
+            if (start[0] == 0) {
+                start[0] = now;
+                start[1] = done;
+            }
+            if (now - lastReport[0] < 10000 && done < total) {
+                return;
+            }
+            lastReport[0] = now;
+            double seconds = Math.max(1, now - start[0]) / 1000.0;
+            double rate = (done - start[1]) / seconds;
+            System.out.printf("%d/%d (%.1f%%), %.0f sets/s, %s left%n", done, total, 100.0 * done / total, rate,
+                    rate > 0 ? String.format("%.0f s", (total - done) / rate) : "? s");
+        });
+        System.out.println(summary);
+    }
+}
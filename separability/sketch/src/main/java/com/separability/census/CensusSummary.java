@@ -0,0 +1,146 @@
+package com.separability.census;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Result of a census of 2-separability over (a range of) the order type
+ * database, see Census.
+ * Counts the point sets, the 2-separable ones (no non-2-separable subset) and
+ * the non-2-separable subsets, and keeps a histogram of the point sets by their
+ * number of non-2-separable subsets. The subsets themselves (as masks, see
+ * PointSet.nonTwoSeparableMasks) are kept for the first point sets that are
+ * not 2-separable, up to a limit.
+ * Summaries of shards are merged into the summary of their union, the result
+ * does not depend on the order of merging. A summary can be written to and
+ * read from a checkpoint (see Checkpoint).
+ */
+public class CensusSummary {
+
+    private final int exampleLimit;
+    private long pointSets = 0;
+    private long twoSeparable = 0;
+    private long nonTwoSeparableSubsets = 0;
+    // point sets by their number of non-2-separable subsets
+    private long[] histogram = new long[0];
+    // non-2-separable subsets of the first point sets that are not 2-separable,
+    // by record index
+    private final TreeMap<Long, BitSet> examples = new TreeMap<Long, BitSet>();
+
+    public CensusSummary(int exampleLimit) {
+        this.exampleLimit = exampleLimit;
+    }
+
+    void add(long index, BitSet nonSeparable) {
+        // counts the point set with the given record index and non-2-separable subsets
+        int count = nonSeparable.cardinality();
+        pointSets += 1;
+        nonTwoSeparableSubsets += count;
+        if (count == 0) {
+            twoSeparable += 1;
+        } else {
+            examples.put(index, nonSeparable);
+            trim();
+        }
+        if (histogram.length <= count) {
+            histogram = Arrays.copyOf(histogram, count + 1);
+        }
+        histogram[count] += 1;
+    }
+
+    public void merge(CensusSummary other) {
+        // adds the counts of a summary of other point sets
+        pointSets += other.pointSets;
+        twoSeparable += other.twoSeparable;
+        nonTwoSeparableSubsets += other.nonTwoSeparableSubsets;
+        if (histogram.length < other.histogram.length) {
+            histogram = Arrays.copyOf(histogram, other.histogram.length);
+        }
+        for (int count = 0; count < other.histogram.length; count++) {
+            histogram[count] += other.histogram[count];
+        }
+        examples.putAll(other.examples);
+        trim();
+    }
+
+    private void trim() {
+        // keeps the examples with the smallest record indices
+        while (examples.size() > exampleLimit) {
+            examples.pollLastEntry();
+        }
+    }
+
+    public void write(DataOutput out) throws IOException {
+        out.writeInt(exampleLimit);
+        out.writeLong(pointSets);
+        out.writeLong(twoSeparable);
+        out.writeLong(nonTwoSeparableSubsets);
+        out.writeInt(histogram.length);
+        for (long count : histogram) {
+            out.writeLong(count);
+        }
+        out.writeInt(examples.size());
+        for (Map.Entry<Long, BitSet> example : examples.entrySet()) {
+            out.writeLong(example.getKey());
+            long[] words = example.getValue().toLongArray();
+            out.writeInt(words.length);
+            for (long word : words) {
+                out.writeLong(word);
+            }
+        }
+    }
+
+    public static CensusSummary read(DataInput in) throws IOException {
+        // reads a summary written by write
+        CensusSummary summary = new CensusSummary(in.readInt());
+        summary.pointSets = in.readLong();
+        summary.twoSeparable = in.readLong();
+        summary.nonTwoSeparableSubsets = in.readLong();
+        summary.histogram = new long[in.readInt()];
+        for (int count = 0; count < summary.histogram.length; count++) {
+            summary.histogram[count] = in.readLong();
+        }
+        int examples = in.readInt();
+        for (int e = 0; e < examples; e++) {
+            long index = in.readLong();
+            long[] words = new long[in.readInt()];
+            for (int w = 0; w < words.length; w++) {
+                words[w] = in.readLong();
+            }
+            summary.examples.put(index, BitSet.valueOf(words));
+        }
+        return summary;
+    }
+
+    public long getPointSets() {
+        return pointSets;
+    }
+
+    public long getTwoSeparable() {
+        return twoSeparable;
+    }
+
+    public long getNonTwoSeparableSubsets() {
+        return nonTwoSeparableSubsets;
+    }
+
+    public long[] getHistogram() {
+        return histogram.clone();
+    }
+
+    public Map<Long, BitSet> getExamples() {
+        return Collections.unmodifiableMap(examples);
+    }
+
+    @Override
+    public String toString() {
+        return twoSeparable + "/" + pointSets + " are 2 separable, " + nonTwoSeparableSubsets
+                + " non-2-separable subsets, point sets by number of such subsets: " + Arrays.toString(histogram);
+    }
+}
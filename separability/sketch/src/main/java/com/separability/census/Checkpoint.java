@@ -0,0 +1,73 @@
+package com.separability.census;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Atomic checkpoint files for long running jobs (see Census.setCheckpoint and
+ * FuzzingSketch).
+ * A checkpoint is written to a temporary file next to the target, synced to
+ * disk and then moved over the target in one atomic step, so a crash leaves
+ * either the previous or the new checkpoint, never a partial one.
+ * Every file starts with a magic number, a format version and the kind of job,
+ * the rest is written by the job with a DataOutputStream.
+ */
+public final class Checkpoint {
+
+    private static final int MAGIC = 0x53455043; // "SEPC"
+    private static final int VERSION = 1;
+
+    public interface Writer {
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    private Checkpoint() {
+    }
+
+    public static void save(Path file, String kind, Writer writer) throws IOException {
+        // writes the checkpoint of the given kind, replacing the previous one
+        Path absolute = file.toAbsolutePath();
+        Path temp = absolute.resolveSibling(absolute.getFileName() + ".tmp");
+        try (FileOutputStream stream = new FileOutputStream(temp.toFile())) {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream));
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeUTF(kind);
+            writer.write(out);
+            out.flush();
+            stream.getFD().sync();
+        }
+        Files.move(temp, absolute, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    public static DataInputStream open(Path file, String kind) throws IOException {
+        // returns the contents of the checkpoint after the header, null if there is
+        // no checkpoint, the caller closes the stream
+        if (!Files.exists(file)) {
+            return null;
+        }
+        InputStream stream = Files.newInputStream(file);
+        DataInputStream in = new DataInputStream(new BufferedInputStream(stream));
+        try {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException(file + " is no checkpoint of this version");
+            }
+            String found = in.readUTF();
+            if (!found.equals(kind)) {
+                throw new IOException(file + " is a " + found + " checkpoint, not " + kind);
+            }
+        } catch (IOException e) {
+            in.close();
+            throw e;
+        }
+        return in;
+    }
+}
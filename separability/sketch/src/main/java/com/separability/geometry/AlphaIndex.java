@@ -0,0 +1,60 @@
+package com.separability.geometry;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * The alpha vectors realised by the line arrangements of a point set family
+ * (under one cut definition), each with the first arrangement realising it.
+ * Alpha vectors are given by their alpha codes (see
+ * PointSetFamily.alphaCode), an arrangement by its row and column in the
+ * enumeration the index was built from.
+ * For alpha boxes up to DENSE_BOX codes the witnesses are kept in an array
+ * indexed by the code, larger boxes (e.g. many colours with few points) only
+ * store the realised codes in a hash map, whose size is bounded by the number
+ * of arrangements instead of the box.
+ * Built and kept up to date by PointSetFamily, see PointSetFamily.hasAlpha.
+ */
+final class AlphaIndex {
+
+    static final long DENSE_BOX = 1 << 24;
+
+    private final LineArrangements arrangements;
+    // row and column of the first witness per alpha code (packed), -1 if none,
+    // null if the index is hashed
+    private final long[] witnesses;
+    private final HashMap<Long, Long> hashed;
+
+    AlphaIndex(LineArrangements arrangements, long box) {
+        this.arrangements = arrangements;
+        if (box <= DENSE_BOX) {
+            this.witnesses = new long[(int) box];
+            this.hashed = null;
+            Arrays.fill(witnesses, -1);
+        } else {
+            this.witnesses = null;
+            this.hashed = new HashMap<Long, Long>();
+        }
+    }
+
+    void record(long code, int row, int column) {
+        // records an arrangement realising the alpha code (if it is the first)
+        long packed = ((long) row << 32) | column;
+        if (witnesses == null) {
+            hashed.putIfAbsent(code, packed);
+        } else if (witnesses[(int) code] < 0) {
+            witnesses[(int) code] = packed;
+        }
+    }
+
+    boolean contains(long code) {
+        return witnesses == null ? hashed.containsKey(code) : witnesses[(int) code] >= 0;
+    }
+
+    void witness(long code, ArrayList<Line> lines) {
+        // replaces the contents of lines by the first arrangement realising the code
+        long packed = witnesses == null ? hashed.get(code) : witnesses[(int) code];
+        arrangements.get((int) (packed >>> 32), (int) packed, lines);
+    }
+}
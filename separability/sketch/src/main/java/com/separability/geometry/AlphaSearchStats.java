@@ -0,0 +1,39 @@
+package com.separability.geometry;
+
+/**
+ * Counters of a pruned alpha cut search (see PointSetFamily.getSearchStats):
+ * how many first lines and groups of second lines were explored or pruned by
+ * the count bounds, and how many pairs of lines were checked exactly.
+ */
+public final class AlphaSearchStats {
+
+    long firstLines, firstLinesPruned;
+    long groups, groupsPruned;
+    long pairs;
+
+    public long getFirstLines() {
+        return firstLines;
+    }
+
+    public long getFirstLinesPruned() {
+        return firstLinesPruned;
+    }
+
+    public long getGroups() {
+        return groups;
+    }
+
+    public long getGroupsPruned() {
+        return groupsPruned;
+    }
+
+    public long getPairs() {
+        return pairs;
+    }
+
+    @Override
+    public String toString() {
+        return "first lines: " + firstLines + " (" + firstLinesPruned + " pruned), groups: " + groups + " ("
+                + groupsPruned + " pruned), pairs checked: " + pairs;
+    }
+}
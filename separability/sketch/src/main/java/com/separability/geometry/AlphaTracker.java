@@ -0,0 +1,444 @@
+package com.separability.geometry;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * The alpha vectors realised by the line arrangements of a point set family
+ * (under one cut definition) with their multiplicities, kept up to date under
+ * single point edits (see PointSetFamily.setIncremental).
+ * Every point lives in a slot that stays fixed while the point exists, a
+ * candidate line is a pair of slots a < b (with index b * (b - 1) / 2 + a) and
+ * an arrangement a pair of lines u <= v (with index v * (v + 1) / 2 + u), so
+ * new slots only append lines and arrangements. For every arrangement the alpha
+ * codes (see PointSetFamily.alphaCode) of its lower and upper side are stored,
+ * -1 if the pair of lines is no arrangement of the cut definition.
+ * The multiplicity of an alpha code is the number of brute force arrangements
+ * (see LineArrangements.multiplicity) realising it (see
+ * PointSetFamily.getAlphaCounts), so an alpha vector is impossible exactly if
+ * its multiplicity is 0. For the consistent colourful definitions only the
+ * side fixed by the orientation of the lines counts.
+ * Moving a point re-evaluates the arrangements through it, for all others the
+ * point can only change its side, which only matters if it changes its side of
+ * one of the two lines. Adding or removing a point changes the radices of the
+ * alpha codes, so all codes are re-encoded, but again only the arrangements
+ * through the point are classified.
+ */
+final class AlphaTracker {
+
+    // largest family (and alpha box) that is tracked, the codes of the
+    // arrangements take about n^4 bytes for n points
+    static final int MAX_POINTS = 80;
+    static final long MAX_BOX = 1 << 24;
+
+    private final int definition;
+    private final int colourCount;
+    // coordinates and colour of every slot (colour -1 for free slots)
+    private float[] xs, ys;
+    private int[] colours;
+    private int slots;
+    private final ArrayDeque<Integer> freeSlots = new ArrayDeque<Integer>();
+    // slots of the points of every colour, in the order of the point set
+    private final ArrayList<ArrayList<Integer>> slotsOf = new ArrayList<ArrayList<Integer>>();
+    // endpoints of every line
+    private int[] lineA, lineB;
+    // alpha codes of the lower and upper side of every arrangement, -1 if none
+    private int[] lowerCodes, upperCodes;
+    private long[] place; // place value of every colour in the alpha codes
+    private long[] multiplicities; // per alpha code
+
+    AlphaTracker(int definition, float[] xs, float[] ys, int[] offsets) {
+        // tracks the family with the packed points (see PointSetFamily.ground()), every
+        // point gets the slot of its index
+        this.definition = definition;
+        this.colourCount = offsets.length - 1;
+        int total = offsets[colourCount];
+        this.xs = new float[0];
+        this.ys = new float[0];
+        this.colours = new int[0];
+        this.slots = 0;
+        this.lineA = new int[0];
+        this.lineB = new int[0];
+        this.lowerCodes = new int[0];
+        this.upperCodes = new int[0];
+        grow(total);
+        for (int c = 0; c < colourCount; c++) {
+            ArrayList<Integer> ofColour = new ArrayList<Integer>();
+            for (int id = offsets[c]; id < offsets[c + 1]; id++) {
+                this.xs[id] = xs[id];
+                this.ys[id] = ys[id];
+                colours[id] = c;
+                ofColour.add(id);
+            }
+            slotsOf.add(ofColour);
+        }
+        this.place = places();
+        this.multiplicities = new long[(int) boxSize()];
+        for (int v = 0; v < lineA.length; v++) {
+            for (int u = 0; u <= v; u++) {
+                if (isArrangement(u, v)) {
+                    evaluate(u, v);
+                }
+            }
+        }
+    }
+
+    static boolean fits(int[] sizes) {
+        // returns whether a family with the given colour sizes can be tracked
+        long box = 1;
+        int total = 0;
+        for (int size : sizes) {
+            total += size;
+            box *= size + 1;
+            if (box > MAX_BOX) {
+                return false;
+            }
+        }
+        return total <= MAX_POINTS;
+    }
+
+    BitSet codes() {
+        // the alpha codes with an alpha cut
+        BitSet codes = new BitSet(multiplicities.length);
+        for (int code = 0; code < multiplicities.length; code++) {
+            if (multiplicities[code] > 0) {
+                codes.set(code);
+            }
+        }
+        return codes;
+    }
+
+    long[] multiplicities() {
+        return multiplicities.clone();
+    }
+
+    long multiplicity(long code) {
+        return multiplicities[(int) code];
+    }
+
+    void move(int colour, int index, float x, float y) {
+        // moves point index of the colour to (x, y)
+        int slot = slotsOf.get(colour).get(index);
+        int lines = lineA.length;
+        byte[] oldSides = sides(slot);
+        // the arrangements through the point are forgotten before it moves, as its
+        // lines may change their direction
+        boolean[] affected = new boolean[lines];
+        for (int l = 0; l < lines; l++) {
+            if (through(l, slot)) {
+                affected[l] = true;
+                for (int v = 0; v < lines; v++) {
+                    if (!(affected[v] && v < l) && lowerCodes[index(Math.min(l, v), Math.max(l, v))] >= 0) {
+                        forget(Math.min(l, v), Math.max(l, v));
+                    }
+                }
+            }
+        }
+        xs[slot] = x;
+        ys[slot] = y;
+        byte[] newSides = sides(slot);
+        // lines through the point or with a different side for it
+        int[] affectedLines = new int[lines];
+        int affectedCount = 0;
+        for (int l = 0; l < lines; l++) {
+            if (through(l, slot) || oldSides[l] != newSides[l]) {
+                affected[l] = true;
+                affectedLines[affectedCount++] = l;
+            }
+        }
+        for (int i = 0; i < affectedCount; i++) {
+            int u = affectedLines[i];
+            for (int v = 0; v < lines; v++) {
+                if (affected[v] && v < u) {
+                    continue; // already done as (v, u)
+                }
+                int first = Math.min(u, v);
+                int second = Math.max(u, v);
+                int arr = index(first, second);
+                if (lowerCodes[arr] < 0) {
+                    continue;
+                }
+                if (through(first, slot) || through(second, slot)) {
+                    evaluate(first, second);
+                    continue;
+                }
+                int oldClass = classOf(oldSides[first], oldSides[second]);
+                int newClass = classOf(newSides[first], newSides[second]);
+                if (oldClass != newClass) {
+                    forget(first, second);
+                    lowerCodes[arr] += place[colour] * (lower(newClass) - lower(oldClass));
+                    upperCodes[arr] += place[colour] * (upper(newClass) - upper(oldClass));
+                    remember(first, second);
+                }
+            }
+        }
+    }
+
+    void add(int colour, float x, float y) {
+        // adds a point to the end of the colour
+        int slot;
+        if (freeSlots.isEmpty()) {
+            slot = slots;
+            grow(slots + 1);
+        } else {
+            slot = freeSlots.pop();
+        }
+        xs[slot] = x;
+        ys[slot] = y;
+        colours[slot] = colour;
+        slotsOf.get(colour).add(slot);
+        recode(slot, 1);
+    }
+
+    void remove(int colour, int index) {
+        // removes point index of the colour
+        int slot = slotsOf.get(colour).remove(index);
+        recode(slot, -1);
+        colours[slot] = -1;
+        freeSlots.push(slot);
+    }
+
+    private void recode(int slot, int sign) {
+        // re-encodes all arrangement codes for the new sizes of the colours (already
+        // changed by the caller), where the point in slot is added (sign 1) to or
+        // removed (sign -1) from the arrangements not through it, arrangements through
+        // it are evaluated if it is added and dropped if it is removed
+        int colour = colours[slot];
+        long[] oldPlace = place;
+        place = places();
+        multiplicities = new long[(int) boxSize()];
+        byte[] sides = sides(slot);
+        for (int v = 0; v < lineA.length; v++) {
+            for (int u = 0; u <= v; u++) {
+                int arr = index(u, v);
+                if (through(u, slot) || through(v, slot)) {
+                    lowerCodes[arr] = -1;
+                    upperCodes[arr] = -1;
+                    if (sign > 0 && isArrangement(u, v)) {
+                        evaluate(u, v);
+                    }
+                    continue;
+                }
+                if (lowerCodes[arr] < 0) {
+                    continue;
+                }
+                int cls = classOf(sides[u], sides[v]);
+                if (sign > 0) {
+                    lowerCodes[arr] = (int) (reencode(lowerCodes[arr], oldPlace) + place[colour] * lower(cls));
+                    upperCodes[arr] = (int) (reencode(upperCodes[arr], oldPlace) + place[colour] * upper(cls));
+                } else {
+                    lowerCodes[arr] = (int) reencode(lowerCodes[arr] - oldPlace[colour] * lower(cls), oldPlace);
+                    upperCodes[arr] = (int) reencode(upperCodes[arr] - oldPlace[colour] * upper(cls), oldPlace);
+                }
+                remember(u, v);
+            }
+        }
+    }
+
+    private long reencode(long code, long[] oldPlace) {
+        // the code with the digits of the old place values, encoded with the current ones
+        long recoded = 0;
+        for (int c = colourCount - 1; c >= 0; c--) {
+            recoded += (code / oldPlace[c]) * place[c];
+            code %= oldPlace[c];
+        }
+        return recoded;
+    }
+
+    private void evaluate(int u, int v) {
+        // classifies all points against the arrangement of the lines u <= v and
+        // records its codes
+        long lower = 0;
+        long upper = 0;
+        for (int q = 0; q < slots; q++) {
+            if (colours[q] < 0) {
+                continue;
+            }
+            int side = side(u, xs[q], ys[q]);
+            int cls = classOf(side, u == v ? side : side(v, xs[q], ys[q]));
+            lower += place[colours[q]] * lower(cls);
+            upper += place[colours[q]] * upper(cls);
+        }
+        lowerCodes[index(u, v)] = (int) lower;
+        upperCodes[index(u, v)] = (int) upper;
+        remember(u, v);
+    }
+
+    private void remember(int u, int v) {
+        // adds the codes of the arrangement to the multiplicities
+        count(u, v, weight(u, v));
+    }
+
+    private void forget(int u, int v) {
+        // removes the codes of the arrangement from the multiplicities
+        count(u, v, -weight(u, v));
+    }
+
+    private void count(int u, int v, int weight) {
+        if (definition != PointSetFamily.COLOURFUL_LINES_FIXED
+                && definition != PointSetFamily.COLOURFUL_LINES_CONSISTENT) {
+            multiplicities[lowerCodes[index(u, v)]] += weight;
+            if (upperCodes[index(u, v)] != lowerCodes[index(u, v)]) {
+                multiplicities[upperCodes[index(u, v)]] += weight;
+            }
+            return;
+        }
+        // the lower side if both lines are directed from the smaller to the larger
+        // colour or both the other way (see PointSetFamily.countNegative)
+        boolean lower = increasing(u) == increasing(v);
+        multiplicities[lower ? lowerCodes[index(u, v)] : upperCodes[index(u, v)]] += weight;
+    }
+
+    private boolean increasing(int l) {
+        // whether the line starts (see side) at the smaller colour
+        return colours[start(l)] < colours[end(l)];
+    }
+
+    private int weight(int u, int v) {
+        // number of brute force arrangements the pair stands for (see
+        // LineArrangements.canonicalPairs), colourful arrangements are not repeated
+        if (definition == PointSetFamily.CUT_LINES || definition == PointSetFamily.CUT_LINES_TWO_COL) {
+            return u == v ? 4 : 8;
+        }
+        return 1;
+    }
+
+    private boolean isArrangement(int u, int v) {
+        // whether the lines u <= v form an arrangement under the cut definition
+        int a = colours[lineA[u]];
+        int b = colours[lineB[u]];
+        int c = colours[lineA[v]];
+        int d = colours[lineB[v]];
+        if (a < 0 || b < 0 || c < 0 || d < 0) {
+            return false;
+        }
+        if (definition == PointSetFamily.CUT_LINES) {
+            return true;
+        }
+        if (a == b || c == d) {
+            return false;
+        }
+        if (definition == PointSetFamily.CUT_LINES_TWO_COL) {
+            return true;
+        }
+        // colourful: one point of each of exactly 4 colours, if fixed the first
+        // line goes through the first two colours
+        if (colourCount != 4 || ((1 << a) | (1 << b) | (1 << c) | (1 << d)) != 15) {
+            return false;
+        }
+        int first = (1 << a) | (1 << b);
+        return definition != PointSetFamily.COLOURFUL_LINES_FIXED || first == 3 || first == 12;
+    }
+
+    private byte[] sides(int slot) {
+        // side of every line (through two other points) for the point in slot
+        byte[] sides = new byte[lineA.length];
+        for (int l = 0; l < lineA.length; l++) {
+            if (!through(l, slot) && colours[lineA[l]] >= 0 && colours[lineB[l]] >= 0) {
+                sides[l] = (byte) side(l, xs[slot], ys[slot]);
+            }
+        }
+        return sides;
+    }
+
+    private int side(int l, float x, float y) {
+        // same as Line.side for the line through the endpoints of l
+        int a = start(l);
+        int b = end(l);
+        return Orientation.orient(xs[a], ys[a], xs[b], ys[b], x, y);
+    }
+
+    private int start(int l) {
+        // the endpoint with smaller x coordinate (as in Line), for equal x the one
+        // with the smaller colour, as the family creates its lines in colour order
+        int a = lineA[l];
+        int b = lineB[l];
+        return xs[a] < xs[b] || xs[a] == xs[b] && colours[a] <= colours[b] ? a : b;
+    }
+
+    private int end(int l) {
+        return start(l) == lineA[l] ? lineB[l] : lineA[l];
+    }
+
+    private static int classOf(int first, int second) {
+        // class of a point with the given sides of the two lines (see
+        // PointSetFamily.classify)
+        if (first == 0 || second == 0) {
+            return PointSetFamily.ON;
+        }
+        int below = (first > 0 ? 1 : 0) + (second > 0 ? 1 : 0);
+        return below % 2 == 0 ? PointSetFamily.BELOW : PointSetFamily.ABOVE;
+    }
+
+    private static int lower(int cls) {
+        // whether a point of the class counts for the lower side
+        return cls == PointSetFamily.ABOVE ? 0 : 1;
+    }
+
+    private static int upper(int cls) {
+        return cls == PointSetFamily.BELOW ? 0 : 1;
+    }
+
+    private boolean through(int l, int slot) {
+        return lineA[l] == slot || lineB[l] == slot;
+    }
+
+    private static int index(int u, int v) {
+        // index of the arrangement of the lines u <= v
+        return v * (v + 1) / 2 + u;
+    }
+
+    private void grow(int newSlots) {
+        // appends slots and the lines and arrangements through them
+        int lines = newSlots * (newSlots - 1) / 2;
+        int arrangements = lines * (lines + 1) / 2;
+        int oldArrangements = lowerCodes.length;
+        xs = Arrays.copyOf(xs, newSlots);
+        ys = Arrays.copyOf(ys, newSlots);
+        colours = Arrays.copyOf(colours, newSlots);
+        Arrays.fill(colours, slots, newSlots, -1);
+        lineA = Arrays.copyOf(lineA, lines);
+        lineB = Arrays.copyOf(lineB, lines);
+        for (int b = slots; b < newSlots; b++) {
+            for (int a = 0; a < b; a++) {
+                lineA[b * (b - 1) / 2 + a] = a;
+                lineB[b * (b - 1) / 2 + a] = b;
+            }
+        }
+        lowerCodes = Arrays.copyOf(lowerCodes, arrangements);
+        upperCodes = Arrays.copyOf(upperCodes, arrangements);
+        Arrays.fill(lowerCodes, oldArrangements, arrangements, -1);
+        Arrays.fill(upperCodes, oldArrangements, arrangements, -1);
+        slots = newSlots;
+    }
+
+    private int[] sizes() {
+        int[] sizes = new int[colourCount];
+        for (int c = 0; c < colourCount; c++) {
+            sizes[c] = slotsOf.get(c).size();
+        }
+        return sizes;
+    }
+
+    private long[] places() {
+        return places(sizes());
+    }
+
+    private long[] places(int[] sizes) {
+        long[] places = new long[colourCount];
+        for (int c = 0; c < colourCount; c++) {
+            places[c] = c == 0 ? 1 : places[c - 1] * (sizes[c - 1] + 1);
+        }
+        return places;
+    }
+
+    private long boxSize() {
+        long box = 1;
+        for (int c = 0; c < colourCount; c++) {
+            box *= slotsOf.get(c).size() + 1;
+        }
+        return box;
+    }
+}
@@ -0,0 +1,18 @@
+package com.separability.geometry;
+
+/**
+ * The size of the canvas a point set lives on.
+ * The geometry classes do not depend on processing, but some computations
+ * (e.g. the epsilon for separating lines, mapping order types to coordinates or
+ * keeping fuzzed points in range) need to know the extent of the canvas.
+ * A GUI can create a canvas from its sketch size, headless jobs just use fixed
+ * dimensions.
+ */
+public class Canvas {
+    public final float width, height;
+
+    public Canvas(float width, float height) {
+        this.width = width;
+        this.height = height;
+    }
+}
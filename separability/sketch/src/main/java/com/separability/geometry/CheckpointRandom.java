@@ -0,0 +1,43 @@
+package com.separability.geometry;
+
+import java.util.Random;
+
+/**
+ * A java.util.Random whose state can be read and restored, so a job using it
+ * can be resumed from a checkpoint with the same random numbers.
+ * Uses the same linear congruential generator as java.util.Random, i.e. for
+ * the same seed both produce the same sequence.
+ */
+final class CheckpointRandom extends Random {
+
+    private static final long serialVersionUID = 1L;
+    private static final long MULTIPLIER = 0x5DEECE66DL;
+    private static final long ADDEND = 0xBL;
+    private static final long MASK = (1L << 48) - 1;
+
+    private long state; // set by setSeed, also while Random is constructed
+
+    CheckpointRandom(long seed) {
+        super(seed);
+    }
+
+    @Override
+    public synchronized void setSeed(long seed) {
+        super.setSeed(seed);
+        state = (seed ^ MULTIPLIER) & MASK;
+    }
+
+    @Override
+    protected int next(int bits) {
+        state = (state * MULTIPLIER + ADDEND) & MASK;
+        return (int) (state >>> (48 - bits));
+    }
+
+    long getState() {
+        return state;
+    }
+
+    void setState(long state) {
+        this.state = state & MASK;
+    }
+}
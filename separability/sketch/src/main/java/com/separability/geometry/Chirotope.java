@@ -0,0 +1,85 @@
+package com.separability.geometry;
+
+/**
+ * The chirotope (orientation table) of a finite point set: the sign of every
+ * ordered triple of points, see Orientation.
+ * All separability and alpha cut queries for lines through two input points
+ * reduce to these signs, so they are computed once and then looked up.
+ * The signs are bit-packed, two bits per ordered triple (i,j,k), so the table
+ * for n points needs n^3 / 4 bytes. Only triples i < j < k are actually
+ * computed, the other permutations follow from the parity of the permutation.
+ * Triples with repeated indices have sign 0.
+ */
+public class Chirotope {
+
+    // largest number of points a table is built for (32MB)
+    public static final int MAX_POINTS = 512;
+
+    private final int n;
+    private final long[] table;
+
+    Chirotope(int n, float[] xs, float[] ys, int[] gx, int[] gy) {
+        // builds the table for the first n points of the packed coordinates, if gx
+        // and gy are not null the (exact) integer grid coordinates are used
+        if (n > MAX_POINTS) {
+            throw new IllegalArgumentException("chirotope of " + n + " points is too large");
+        }
+        this.n = n;
+        long entries = (long) n * n * n;
+        this.table = new long[(int) ((entries + 31) / 32)];
+        for (int i = 0; i < n; i++) {
+            for (int j = i + 1; j < n; j++) {
+                for (int k = j + 1; k < n; k++) {
+                    int sign;
+                    if (gx != null) {
+                        sign = Orientation.orient((long) gx[i], gy[i], gx[j], gy[j], gx[k], gy[k]);
+                    } else {
+                        sign = Orientation.orient(xs[i], ys[i], xs[j], ys[j], xs[k], ys[k]);
+                    }
+                    if (sign == 0) {
+                        continue;
+                    }
+                    // even permutations have the same sign, odd ones the opposite
+                    set(i, j, k, sign);
+                    set(j, k, i, sign);
+                    set(k, i, j, sign);
+                    set(j, i, k, -sign);
+                    set(i, k, j, -sign);
+                    set(k, j, i, -sign);
+                }
+            }
+        }
+    }
+
+    public int size() {
+        return n;
+    }
+
+    public int sign(int i, int j, int k) {
+        // returns the orientation of the points i, j, k (1, -1 or 0)
+        int index = (i * n + j) * n + k;
+        int bits = (int) (table[index >>> 5] >>> ((index & 31) << 1)) & 3;
+        // 01 is positive, 11 is negative, 00 is zero
+        return bits == 3 ? -1 : bits;
+    }
+
+    public boolean isGeneral() {
+        // returns true if no three points are collinear
+        for (int i = 0; i < n; i++) {
+            for (int j = i + 1; j < n; j++) {
+                for (int k = j + 1; k < n; k++) {
+                    if (sign(i, j, k) == 0) {
+                        return false;
+                    }
+                }
+            }
+        }
+        return true;
+    }
+
+    private void set(int i, int j, int k, int sign) {
+        int index = (i * n + j) * n + k;
+        long bits = sign > 0 ? 1L : 3L;
+        table[index >>> 5] |= bits << ((index & 31) << 1);
+    }
+}
@@ -1,18 +1,13 @@
 package com.separability.geometry;
 
-import com.separability.Utils;
-
-import processing.core.PApplet;
-import processing.core.PVector;
-
 /**
  * A class to handle lines in the plane. Supports queries for points to lie
  * on,below or above the line.
- * Due to technical reasons, each line needs a PApplet object which serves as
- * the sketch it lives in.
- * While it is not necessary to show the line, the sketch will serve as a canvas
- * to draw the line with the show function.
- * Moreover, the line exportable to shader format.
+ * Lines are plain geometry and do not depend on processing, to draw them (or
+ * export them to shader format) see gui.Renderer.
+ * A line through two points of a point set (family) can remember the indices
+ * of these points in its chirotope, then side queries for other points of the
+ * same set are table lookups.
  */
 public class Line {
     private boolean degen = false;
@@ -20,14 +15,13 @@ public class Line {
     // start and end points
     private Point s, e;
 
-    private PApplet sketch;
-
-    private static final float EPS = 0.1f;
+    // the chirotope and the indices of the start and end point in it (if known)
+    private Chirotope chirotope = null;
+    private int startId = -1, endId = -1;
 
-    public Line(PApplet sketch, float sx, float sy, float ex, float ey) {
-        this.sketch = sketch;
-        this.s = new Point(sketch, sx, sy);
-        this.e = new Point(sketch, ex, ey);
+    public Line(float sx, float sy, float ex, float ey) {
+        this.s = new Point(sx, sy);
+        this.e = new Point(ex, ey);
         // start point should have smaller x coordinate
         if (sx > ex) {
             Point tmp = this.s;
@@ -43,15 +37,18 @@ public class Line {
             this.s = e;
             this.e = s;
         }
-        this.sketch = s.getSketch();
     }
 
-    public boolean isDegen() {
-        return degen;
+    public Line(Point s, Point e, Chirotope chirotope, int sId, int eId) {
+        // a line through the points with indices sId and eId of chirotope
+        this(s, e);
+        this.chirotope = chirotope;
+        this.startId = s.x > e.x ? eId : sId;
+        this.endId = s.x > e.x ? sId : eId;
     }
 
-    public PApplet getSketch() {
-        return sketch;
+    public boolean isDegen() {
+        return degen;
     }
 
     public Point getStartPoint() {
@@ -62,16 +59,48 @@ public class Line {
         return this.e;
     }
 
+    public int side(float x, float y) {
+        // returns 1 if (x,y) is (strictly) below the line (visually), -1 if it is
+        // (strictly) above and 0 if it is on the line
+        // the test is exact (see Orientation), so there is no epsilon involved
+        return Orientation.orient(s.x, s.y, e.x, e.y, x, y);
+    }
+
+    public int side(Point p) {
+        return side(p.x, p.y);
+    }
+
+    public int side(Chirotope chi, int id, float x, float y) {
+        // same as side(x, y), where (x,y) is the point with index id in chi
+        // if this line goes through two points of chi, this is a table lookup
+        if (chi != null && chi == chirotope) {
+            return chi.sign(startId, endId, id);
+        }
+        return side(x, y);
+    }
+
+    public Chirotope getChirotope() {
+        return chirotope;
+    }
+
+    public int getStartId() {
+        return startId;
+    }
+
+    public int getEndId() {
+        return endId;
+    }
+
     public boolean isBelow(float x, float y) {
         // returns true if (x,y) is (strictly) below the line (visually)
         // since y coordinates increase in downwards directions
         // in the sketch, this means the point is above the line meaning y > mx+q
-        return Utils.rightTurn(s.x, s.y, e.x, e.y, x, y, EPS);
+        return side(x, y) > 0;
     }
 
     public boolean isAbove(float x, float y) {
         // similar to isBelow
-        return Utils.leftTurn(s.x, s.y, e.x, e.y, x, y, EPS);
+        return side(x, y) < 0;
     }
 
     public boolean isBelow(Point p) {
@@ -85,32 +114,21 @@ public class Line {
     public boolean isOn(float x, float y) {
         // returns true if the point is on the line
         // here, on the line means that it is neither above or below
-        return !isBelow(x, y) && !isAbove(x, y);
+        return side(x, y) == 0;
     }
 
     public boolean isOn(Point p) {
         return isOn(p.x, p.y);
     }
 
-    public PVector shaderFormat() {
-        // returns a vector holding slope and y coordinate offset for a line living in
-        // shader coordinates
-        // shader coordinates have y coordinates increasing as in the regular coordinate
-        // system
-        // so we need to invert the slope and y coordinate offset
-        float m = Math.abs(e.x - s.x) > 0f ? (e.y - s.y) / (e.x - s.x) : 1e9f;
-        float q = s.y - m * s.x;
-        return new PVector(-m, sketch.height - q);
-    }
-
-    public void show() {
-        sketch.strokeWeight(2);
-        sketch.stroke(0);
-        float m = Math.abs(e.x - s.x) > 0f ? (e.y - s.y) / (e.x - s.x) : 1e9f;
-        float q = s.y - m * s.x;
-        if (Math.abs(m) > 30f) {
-            return;
-        }
-        sketch.line(0, q, sketch.width, m * sketch.width + q);
+    public float getSlope() {
+        // returns the slope of the line (in sketch coordinates), vertical lines get a
+        // very large slope
+        return Math.abs(e.x - s.x) > 0f ? (e.y - s.y) / (e.x - s.x) : 1e9f;
+    }
+
+    public float getOffset() {
+        // returns the y coordinate where the line intersects x = 0
+        return s.y - getSlope() * s.x;
     }
 }
@@ -0,0 +1,288 @@
+package com.separability.geometry;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * A lazy enumeration of two-line arrangements, see
+ * PointSetFamily.arrangements() and PointSet.twoSeparators().
+ * The arrangements are organised in rows: either pairs of candidate lines,
+ * where row i holds the pairs with first line i, or colourful point sets, where
+ * row i holds the (one or three) arrangements of the i-th colourful set.
+ * Colourful sets are not materialised: the row is a mixed-radix number whose
+ * digits are the indices of the points in their colours (colour 0 is the least
+ * significant digit, as in PointSetFamily.colourfulPointSets()), and the lines
+ * are looked up in a table of all lines through two different colours.
+ * Pairs of lines are either ordered (including (l, l)), distinct (i < j) or
+ * canonical (i <= j), where a canonical pair stands for all variants a brute
+ * force enumeration creates (see multiplicity()).
+ * Rows are the unit of splitting for parallel evaluation.
+ * Iterators and spliterators reuse one list for all arrangements they return,
+ * so the list must be copied to keep it.
+ */
+public final class LineArrangements implements Iterable<ArrayList<Line>> {
+
+    // point pairs of the three arrangements of a colourful point set
+    private static final int[][] COLOURFUL_PAIRS = { { 0, 1, 2, 3 }, { 0, 2, 1, 3 }, { 0, 3, 1, 2 } };
+
+    // candidate lines (or null for colourful arrangements)
+    private final ArrayList<Line> lines;
+    private final boolean unordered; // only pairs (i, j) with i < j (or i <= j)
+    private final int diagonal; // 1 if unordered pairs include (i, i), else 0
+    // number of brute force arrangements a pair (and a pair (i, i)) stands for
+    private final int pairWeight, diagonalWeight;
+    // lines through the points with indices a < b at [a * points + b] (or null for
+    // pairs of lines), the offsets of the four colours in the indices and the number
+    // of arrangements per colourful set
+    private final Line[] pairLines;
+    private final int points;
+    private final int[] offsets;
+    private final int rows;
+    private final int variants;
+
+    private LineArrangements(ArrayList<Line> lines, boolean unordered, int diagonal, int pairWeight,
+            int diagonalWeight) {
+        this.lines = lines;
+        this.unordered = unordered;
+        this.diagonal = diagonal;
+        this.pairWeight = pairWeight;
+        this.diagonalWeight = diagonalWeight;
+        this.pairLines = null;
+        this.points = 0;
+        this.offsets = null;
+        this.rows = lines.size();
+        this.variants = 0;
+    }
+
+    LineArrangements(Line[] pairLines, int[] offsets, boolean fixedColours) {
+        // the arrangements of the colourful point sets of 4 colours (with the given
+        // offsets), if fixedColours only the lines through the first two and the last
+        // two points are used
+        this.lines = null;
+        this.unordered = false;
+        this.diagonal = 0;
+        this.pairWeight = 1;
+        this.diagonalWeight = 1;
+        this.pairLines = pairLines;
+        this.points = offsets[4];
+        this.offsets = offsets;
+        long product = 1;
+        for (int c = 0; c < 4; c++) {
+            product *= offsets[c + 1] - offsets[c];
+        }
+        if (product > Integer.MAX_VALUE) {
+            throw new IllegalStateException(product + " colourful point sets are too many");
+        }
+        this.rows = (int) product;
+        this.variants = fixedColours ? 1 : 3;
+    }
+
+    static LineArrangements orderedPairs(ArrayList<Line> lines) {
+        // all ordered pairs of lines, including (l, l)
+        return new LineArrangements(lines, false, 0, 1, 1);
+    }
+
+    static LineArrangements distinctPairs(ArrayList<Line> lines) {
+        // all pairs (i, j) with i < j
+        return new LineArrangements(lines, true, 0, 1, 1);
+    }
+
+    static LineArrangements canonicalPairs(ArrayList<Line> lines) {
+        // all pairs (i, j) with i <= j of lines that are given only once (one of the
+        // two orientations), stands for the ordered pairs of the lines in both
+        // orientations: 2 * 2 * 2 variants of a pair, 4 of a pair (l, l)
+        // all variants have the same lower and upper side (possibly swapped)
+        return new LineArrangements(lines, true, 1, 8, 4);
+    }
+
+    public static LineArrangements empty() {
+        return orderedPairs(new ArrayList<Line>());
+    }
+
+    public int rows() {
+        return rows;
+    }
+
+    public int columns(int row) {
+        // number of arrangements in the given row
+        if (lines == null) {
+            return variants;
+        }
+        return unordered ? lines.size() - row - 1 + diagonal : lines.size();
+    }
+
+    public int multiplicity(int row, int column) {
+        // number of brute force arrangements (ordered pairs of lines in both
+        // orientations) the given arrangement stands for, 1 unless canonical
+        if (lines != null && unordered && diagonal == 1) {
+            return column == 0 ? diagonalWeight : pairWeight;
+        }
+        return 1;
+    }
+
+    public long size() {
+        return size(0, rows());
+    }
+
+    public long size(int fromRow, int toRow) {
+        // number of arrangements in the rows [fromRow, toRow)
+        long rowCount = toRow - fromRow;
+        if (lines == null) {
+            return rowCount * variants;
+        }
+        if (!unordered) {
+            return rowCount * lines.size();
+        }
+        // sum of lines.size() - row - 1 + diagonal over the rows
+        return rowCount * (lines.size() - 1 + diagonal) - (rowCount * (fromRow + toRow - 1)) / 2;
+    }
+
+    public void get(int row, int column, ArrayList<Line> holder) {
+        // replaces the contents of holder by the given arrangement
+        holder.clear();
+        if (lines != null) {
+            holder.add(lines.get(row));
+            holder.add(lines.get(unordered ? row + column + 1 - diagonal : column));
+            return;
+        }
+        // decode the point of every colour from the row
+        int rest = row;
+        int id0 = offsets[0] + rest % (offsets[1] - offsets[0]);
+        rest /= offsets[1] - offsets[0];
+        int id1 = offsets[1] + rest % (offsets[2] - offsets[1]);
+        rest /= offsets[2] - offsets[1];
+        int id2 = offsets[2] + rest % (offsets[3] - offsets[2]);
+        rest /= offsets[3] - offsets[2];
+        int id3 = offsets[3] + rest;
+        int[] pair = COLOURFUL_PAIRS[column];
+        holder.add(pairLine(pair[0], pair[1], id0, id1, id2, id3));
+        holder.add(pairLine(pair[2], pair[3], id0, id1, id2, id3));
+    }
+
+    private Line pairLine(int a, int b, int id0, int id1, int id2, int id3) {
+        // the line through the points of colours a < b of a colourful set
+        int first = a == 0 ? id0 : (a == 1 ? id1 : id2);
+        int second = b == 1 ? id1 : (b == 2 ? id2 : id3);
+        return pairLines[first * points + second];
+    }
+
+    @Override
+    public Iterator<ArrayList<Line>> iterator() {
+        Cursor cursor = new Cursor(0, rows());
+        return new Iterator<ArrayList<Line>>() {
+            @Override
+            public boolean hasNext() {
+                return cursor.hasNext();
+            }
+
+            @Override
+            public ArrayList<Line> next() {
+                if (!cursor.hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return cursor.next();
+            }
+        };
+    }
+
+    @Override
+    public Spliterator<ArrayList<Line>> spliterator() {
+        return spliterator(0, rows());
+    }
+
+    public Spliterator<ArrayList<Line>> spliterator(int fromRow, int toRow) {
+        // the arrangements of the rows [fromRow, toRow), splits by rows
+        return new RowSpliterator(fromRow, toRow);
+    }
+
+    public Stream<ArrayList<Line>> stream() {
+        return StreamSupport.stream(spliterator(), false);
+    }
+
+    private class Cursor {
+        // position in the rows [row, toRow), next() reuses the holder
+        private int row;
+        private int column = 0;
+        private final int toRow;
+        private long consumed = 0;
+        private final ArrayList<Line> holder = new ArrayList<Line>(2);
+
+        Cursor(int fromRow, int toRow) {
+            this.row = fromRow;
+            this.toRow = toRow;
+            skipEmptyRows();
+        }
+
+        boolean hasNext() {
+            return row < toRow;
+        }
+
+        ArrayList<Line> next() {
+            get(row, column, holder);
+            consumed += 1;
+            column += 1;
+            if (column >= columns(row)) {
+                row += 1;
+                column = 0;
+                skipEmptyRows();
+            }
+            return holder;
+        }
+
+        private void skipEmptyRows() {
+            while (row < toRow && columns(row) == 0) {
+                row += 1;
+            }
+        }
+    }
+
+    private class RowSpliterator implements Spliterator<ArrayList<Line>> {
+        private int fromRow;
+        private final int toRow;
+        private Cursor cursor = null; // created when iteration starts
+
+        RowSpliterator(int fromRow, int toRow) {
+            this.fromRow = fromRow;
+            this.toRow = toRow;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super ArrayList<Line>> action) {
+            if (cursor == null) {
+                cursor = new Cursor(fromRow, toRow);
+            }
+            if (!cursor.hasNext()) {
+                return false;
+            }
+            action.accept(cursor.next());
+            return true;
+        }
+
+        @Override
+        public Spliterator<ArrayList<Line>> trySplit() {
+            // hands off the first half of the rows (only before iteration started)
+            if (cursor != null || toRow - fromRow < 2) {
+                return null;
+            }
+            int mid = (fromRow + toRow) >>> 1;
+            RowSpliterator prefix = new RowSpliterator(fromRow, mid);
+            fromRow = mid;
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize() {
+            return size(fromRow, toRow) - (cursor == null ? 0 : cursor.consumed);
+        }
+
+        @Override
+        public int characteristics() {
+            return ORDERED | NONNULL | SIZED | SUBSIZED;
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.separability.geometry;
+
+import java.math.BigDecimal;
+
+/**
+ * Orientation predicates for triples of points in the plane. All side-of-line
+ * tests (below, above, on) reduce to the sign of the determinant
+ * (bx - ax) * (cy - ay) - (by - ay) * (cx - ax).
+ * For floating point coordinates the sign is computed with a fast floating
+ * point filter and falls back to exact arithmetic only if the filter cannot
+ * decide, so the result is always exact and no epsilon is involved.
+ * For integer coordinates (e.g. the grid of the order type database) the sign
+ * is computed exactly with long arithmetic.
+ * None of the predicates allocate except the last resort exact fallback.
+ */
+public final class Orientation {
+
+    // error bound for the floating point filter (see Shewchuk, "Adaptive Precision
+    // Floating-Point Arithmetic and Fast Robust Geometric Predicates")
+    private static final double EPSILON = Math.ulp(1.0) / 2.0;
+    private static final double CCW_ERR_BOUND = (3.0 + 16.0 * EPSILON) * EPSILON;
+
+    private Orientation() {
+    }
+
+    public static int orient(double ax, double ay, double bx, double by, double cx, double cy) {
+        // returns 1 if the determinant is positive, -1 if it is negative and 0 if the
+        // three points are collinear
+        // in the sketch (where y increases downwards) positive means c is (visually)
+        // below the line from a to b if a is left of b
+        double detLeft = (ax - cx) * (by - cy);
+        double detRight = (ay - cy) * (bx - cx);
+        double det = detLeft - detRight;
+        double detSum;
+
+        if (detLeft > 0) {
+            if (detRight <= 0) {
+                return signum(det);
+            }
+            detSum = detLeft + detRight;
+        } else if (detLeft < 0) {
+            if (detRight >= 0) {
+                return signum(det);
+            }
+            detSum = -detLeft - detRight;
+        } else {
+            return signum(det);
+        }
+
+        double errBound = CCW_ERR_BOUND * detSum;
+        if (det >= errBound || -det >= errBound) {
+            return signum(det);
+        }
+        return orientExact(ax, ay, bx, by, cx, cy);
+    }
+
+    public static int orient(long ax, long ay, long bx, long by, long cx, long cy) {
+        // exact orientation for integer coordinates, coordinates must be smaller than
+        // 2^30 in absolute value (the order type database uses at most 16 bits)
+        long det = (ax - cx) * (by - cy) - (ay - cy) * (bx - cx);
+        return Long.signum(det);
+    }
+
+    static int orientExact(double ax, double ay, double bx, double by, double cx, double cy) {
+        // the filter failed, so the determinant is (close to) zero
+        // first try without allocating: if all differences and both products are
+        // exactly representable the sign is given by comparing the two products
+        double acx = ax - cx;
+        double bcy = by - cy;
+        double acy = ay - cy;
+        double bcx = bx - cx;
+        if (diffTail(ax, cx, acx) == 0 && diffTail(by, cy, bcy) == 0 && diffTail(ay, cy, acy) == 0
+                && diffTail(bx, cx, bcx) == 0) {
+            double detLeft = acx * bcy;
+            double detRight = acy * bcx;
+            if (Math.fma(acx, bcy, -detLeft) == 0 && Math.fma(acy, bcx, -detRight) == 0) {
+                return detLeft > detRight ? 1 : (detLeft < detRight ? -1 : 0);
+            }
+        }
+        // last resort: arbitrary precision (every finite double is exactly
+        // representable as a BigDecimal)
+        BigDecimal left = new BigDecimal(ax).subtract(new BigDecimal(cx))
+                .multiply(new BigDecimal(by).subtract(new BigDecimal(cy)));
+        BigDecimal right = new BigDecimal(ay).subtract(new BigDecimal(cy))
+                .multiply(new BigDecimal(bx).subtract(new BigDecimal(cx)));
+        return left.compareTo(right);
+    }
+
+    private static double diffTail(double a, double b, double x) {
+        // returns the rounding error of x = a - b (Knuth's two-diff), zero iff x is
+        // exact
+        double bVirt = a - x;
+        double aVirt = x + bVirt;
+        double bRound = bVirt - b;
+        double aRound = a - aVirt;
+        return aRound + bRound;
+    }
+
+    private static int signum(double x) {
+        return x > 0 ? 1 : (x < 0 ? -1 : 0);
+    }
+}
@@ -1,44 +1,383 @@
 package com.separability.geometry;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 import java.util.ListIterator;
-
-import processing.core.PVector;
+import java.util.Random;
+import java.util.function.LongPredicate;
 
 /**
  * A class to handle point sets in the plane. Supports several queries that are
  * used in separability or alpha cutting checks.
  * Internally the point set is represented as an ArrayList of Point objects.
+ * Additionally the coordinates are kept in packed float arrays, which are used
+ * by all scan loops (counting points below/above/on lines, general position).
+ * The packed arrays are updated after changes made through the list methods
+ * (including iterators). Point objects moved directly (e.g. by pnt.x = ...)
+ * have to be reported with changed(), queries do not look at the objects.
+ * A point set can also be stored compact, i.e. only as packed arrays without
+ * Point objects (see compact()). Point objects are created lazily once the list
+ * methods are used (e.g. by a GUI).
+ * Point sets decoded from the order type database are stored as their unsigned
+ * 16 bit grid coordinates only (4 bytes per point), orientation tests among
+ * its points are exact integer computations and the float coordinates are
+ * derived from the grid when they are needed.
+ * A point set may know the canvas it lives on, which is used to compute the
+ * epsilon for separating lines.
  * The class implements the List<Point> interface, so all important list methods
  * are exposed.
+ * A point set is not thread-safe, even queries update lazily built state
+ * (packed coordinates, point objects, chirotope, side masks), so parallel
+ * workers need point sets of their own.
  */
 public class PointSet implements List<Point> {
 
-    private ArrayList<Point> points;
+    // largest point set a census of all subsets is done for (2^30 bits)
+    public static final int MAX_CENSUS_POINTS = 30;
+
+    private ArrayList<Point> points; // null if stored compact
+
+    // packed coordinates, in sync with points (see sync()), null for grid sets
+    // until floats() derives them
+    private float[] xs = new float[0];
+    private float[] ys = new float[0];
+    private int n = 0;
+    // unsigned 16 bit grid coordinates, null if unknown or points were changed,
+    // and how they map to floats: { largest grid value, lowest and highest x,
+    // lowest and highest y } (shared by all sets of a reader)
+    private short[] gx, gy;
+    private float[] gridMap;
+    // incremented whenever the points change
+    private int version = 0;
+    // true if points was changed after the packed coordinates were updated
+    private boolean stale = true;
+
+    // orientation table, built lazily for the current version
+    private Chirotope chirotope = null;
+    private int chirotopeVersion = -1;
+
+    // side masks of the candidate lines from getAllLines() (bit i is point i),
+    // built lazily for the current version if there are at most 64 points
+    private long[] belowMasks = null;
+    private long[] onMasks = null;
+    private int masksVersion = -1;
+
+    private Canvas canvas;
+
+    private static Random rnd = new Random();
 
     public PointSet() {
         this.points = new ArrayList<Point>();
     }
 
+    public PointSet(Canvas canvas) {
+        this.points = new ArrayList<Point>();
+        this.canvas = canvas;
+    }
+
     public PointSet(ArrayList<Point> points) {
         this.points = points;
     }
 
+    public PointSet(Canvas canvas, ArrayList<Point> points) {
+        this.points = points;
+        this.canvas = canvas;
+    }
+
+    public PointSet(Canvas canvas, float[] xs, float[] ys) {
+        this(canvas, xs, ys, null, null);
+    }
+
+    public PointSet(Canvas canvas, float[] xs, float[] ys, int[] gx, int[] gy) {
+        // creates a compact point set from packed coordinates (the arrays are not
+        // copied, but never written to, see sync()), gx and gy are optional integer
+        // grid coordinates in [0, 65535]
+        if (xs.length != ys.length || (gx != null && (gx.length != xs.length || gy.length != xs.length))) {
+            throw new IllegalArgumentException("coordinate arrays must have the same length");
+        }
+        this.points = null;
+        this.stale = false;
+        this.xs = xs;
+        this.ys = ys;
+        this.n = xs.length;
+        if (gx != null) {
+            this.gx = narrow(gx);
+            this.gy = narrow(gy);
+        }
+        this.canvas = canvas;
+    }
+
+    PointSet(Canvas canvas, int n, float[] xs, float[] ys, short[] gx, short[] gy, float[] gridMap) {
+        // creates a compact point set of n points, xs and ys may be null if there are
+        // unsigned grid coordinates, the float coordinates are then derived with
+        // gridMap when they are needed (see floats())
+        this.points = null;
+        this.stale = false;
+        this.n = n;
+        this.xs = xs;
+        this.ys = ys;
+        this.gx = gx;
+        this.gy = gy;
+        this.gridMap = gridMap;
+        this.canvas = canvas;
+    }
+
+    private static short[] narrow(int[] grid) {
+        short[] narrowed = new short[grid.length];
+        for (int i = 0; i < grid.length; i++) {
+            if (grid[i] < 0 || grid[i] > 0xffff) {
+                throw new IllegalArgumentException("grid coordinate " + grid[i] + " is no unsigned 16 bit value");
+            }
+            narrowed[i] = (short) grid[i];
+        }
+        return narrowed;
+    }
+
     public PointSet(PointSet other) {
-        this.points = new ArrayList<Point>(other.points);
+        this.points = new ArrayList<Point>(other.points());
+        this.canvas = other.canvas;
+    }
+
+    public Canvas getCanvas() {
+        return canvas;
+    }
+
+    public void setCanvas(Canvas canvas) {
+        this.canvas = canvas;
     }
 
     public PointSet copy() {
-        PointSet copied = new PointSet();
+        if (points == null) {
+            // compact sets stay compact, the grid is never changed in place, so it is
+            // shared
+            return new PointSet(canvas, n, xs == null ? null : Arrays.copyOf(xs, n),
+                    ys == null ? null : Arrays.copyOf(ys, n), gx, gy, gridMap);
+        }
+        PointSet copied = new PointSet(canvas);
         for (Point pnt : points) {
             copied.add(new Point(pnt));
         }
         return copied;
     }
 
+    public PointSet subset(long mask) {
+        // returns the points selected by mask (bit i is point i), compact sets give
+        // compact subsets, otherwise the subset holds the same point objects
+        sync();
+        if (points == null) {
+            int size = Long.bitCount(mask);
+            float[] subXs = xs == null ? null : new float[size];
+            float[] subYs = xs == null ? null : new float[size];
+            short[] subGx = gx == null ? null : new short[size];
+            short[] subGy = gy == null ? null : new short[size];
+            int k = 0;
+            for (int i = 0; i < n; i++) {
+                if ((mask & (1L << i)) == 0) {
+                    continue;
+                }
+                if (xs != null) {
+                    subXs[k] = xs[i];
+                    subYs[k] = ys[i];
+                }
+                if (gx != null) {
+                    subGx[k] = gx[i];
+                    subGy[k] = gy[i];
+                }
+                k += 1;
+            }
+            return new PointSet(canvas, size, subXs, subYs, subGx, subGy, gridMap);
+        }
+        PointSet sub = new PointSet(canvas);
+        for (int i = 0; i < n; i++) {
+            if ((mask & (1L << i)) != 0) {
+                sub.add(points.get(i));
+            }
+        }
+        return sub;
+    }
+
+    public long mask(PointSet subset) {
+        // returns the mask (bit i is point i) of the given subset of this set, points
+        // are matched by coordinates
+        // returns -1 if a point is not in this set or there are too many points
+        floats();
+        if (n > Subsets.MAX_POINTS) {
+            return -1;
+        }
+        long selected = 0;
+        for (int k = 0; k < subset.size(); k++) {
+            float x = subset.getX(k);
+            float y = subset.getY(k);
+            boolean found = false;
+            for (int i = 0; i < n; i++) {
+                if ((selected & (1L << i)) == 0 && xs[i] == x && ys[i] == y) {
+                    selected |= 1L << i;
+                    found = true;
+                    break;
+                }
+            }
+            if (!found) {
+                return -1;
+            }
+        }
+        return selected;
+    }
+
+    public boolean isCompact() {
+        return points == null;
+    }
+
+    public void compact() {
+        // drops the Point objects and only keeps the packed coordinates
+        // the points are recreated (as new objects) when the list methods are used
+        sync();
+        if (xs != null && xs.length != n) {
+            xs = Arrays.copyOf(xs, n);
+            ys = Arrays.copyOf(ys, n);
+        }
+        points = null;
+    }
+
+    public int getVersion() {
+        // returns a number that changes whenever points are added, removed or moved
+        // (through the list methods or reported by changed())
+        return version;
+    }
+
+    public void changed() {
+        // reports that point objects of this set were moved directly (e.g. by
+        // pnt.x = ...), the next query updates the packed coordinates
+        // (a compact set has handed out no objects, so nothing can have moved)
+        if (points != null) {
+            modified();
+        }
+    }
+
+    private void modified() {
+        version += 1;
+        stale = true;
+        // the grid coordinates are only valid as long as nothing was changed
+        gx = null;
+        gy = null;
+    }
+
+    public float getX(int i) {
+        floats();
+        return xs[i];
+    }
+
+    float[] packedX() {
+        // copy of the packed x coordinates
+        floats();
+        return Arrays.copyOf(xs, n);
+    }
+
+    float[] packedY() {
+        floats();
+        return Arrays.copyOf(ys, n);
+    }
+
+    public float getY(int i) {
+        floats();
+        return ys[i];
+    }
+
+    public boolean hasGrid() {
+        sync();
+        return gx != null;
+    }
+
+    int orient(int i, int j, int k) {
+        // orientation of the points with indices i, j, k (see Orientation), exact on
+        // the integer grid if it is known
+        // assumes sync() was called
+        if (gx != null) {
+            return Orientation.orient((long) (gx[i] & 0xffff), gy[i] & 0xffff, gx[j] & 0xffff, gy[j] & 0xffff,
+                    gx[k] & 0xffff, gy[k] & 0xffff);
+        }
+        return Orientation.orient(xs[i], ys[i], xs[j], ys[j], xs[k], ys[k]);
+    }
+
+    private static int[] widen(short[] grid) {
+        int[] widened = new int[grid.length];
+        for (int i = 0; i < grid.length; i++) {
+            widened[i] = grid[i] & 0xffff;
+        }
+        return widened;
+    }
+
+    public Chirotope chirotope() {
+        // returns the orientation table of this point set, built lazily and rebuilt
+        // whenever the points changed
+        sync();
+        if (chirotope == null || chirotopeVersion != version) {
+            if (gx != null) {
+                chirotope = new Chirotope(n, null, null, widen(gx), widen(gy));
+            } else {
+                chirotope = new Chirotope(n, xs, ys, null, null);
+            }
+            chirotopeVersion = version;
+        }
+        return chirotope;
+    }
+
+    private ArrayList<Point> points() {
+        // returns the point objects, creates them if the set is stored compact
+        if (points == null) {
+            floats();
+            ArrayList<Point> created = new ArrayList<Point>(n);
+            for (int i = 0; i < n; i++) {
+                created.add(new Point(xs[i], ys[i]));
+            }
+            points = created;
+        }
+        return points;
+    }
+
+    void sync() {
+        // updates the packed coordinates from the point objects after a change (see
+        // modified()), queries without a change do not touch the objects
+        // the coordinates go to new arrays: the old ones may be shared with the caller
+        // of the packed constructor, a reader or another set
+        if (points == null || !stale) {
+            return;
+        }
+        int size = points.size();
+        xs = new float[size];
+        ys = new float[size];
+        for (int i = 0; i < size; i++) {
+            Point pnt = points.get(i);
+            xs[i] = pnt.x;
+            ys[i] = pnt.y;
+        }
+        n = size;
+        stale = false;
+    }
+
+    private void floats() {
+        // sync(), and derives the float coordinates of a grid set
+        sync();
+        if (xs == null) {
+            float max = gridMap[0];
+            xs = new float[n];
+            ys = new float[n];
+            for (int i = 0; i < n; i++) {
+                xs[i] = map(gx[i] & 0xffff, max, gridMap[1], gridMap[2]);
+                ys[i] = map(gy[i] & 0xffff, max, gridMap[3], gridMap[4]);
+            }
+        }
+    }
+
+    private static float map(float value, float max, float low, float high) {
+        // same as PApplet.map(value, 0, max, low, high)
+        return low + (high - low) * ((value - 0) / (max - 0));
+    }
+
     public float getEpsilon(ArrayList<Point> points) {
         // computes a distance epsilon such that moving a point by epsilon in any
         // direction
@@ -49,18 +388,26 @@ public class PointSet implements List<Point> {
         // is at least
         // a quarter of the minimum distance between any points (this is true for the
         // order type database).
+        return new PointSet(canvas, points).getEpsilon();
+    }
+
+    public float getEpsilon() {
+        // same as getEpsilon(points) for the points of this set
+        floats();
         // first find min distance
         float w = 8000;
-        if (points.size() > 0) {
-            w = points.get(0).getSketch().width;
+        if (n > 0 && canvas != null) {
+            w = canvas.width;
         }
         float minDist = w;
-        for (Point p1 : points) {
-            for (Point p2 : points) {
-                if (p1 == p2) {
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++) {
+                if (i == j) {
                     continue;
                 }
-                minDist = Math.min(minDist, p1.dist(p2));
+                float dx = xs[i] - xs[j];
+                float dy = ys[i] - ys[j];
+                minDist = Math.min(minDist, (float) Math.sqrt(dx * dx + dy * dy));
             }
         }
         // then epsilon is minDist^2 / (8 width)
@@ -68,20 +415,19 @@ public class PointSet implements List<Point> {
     }
 
     public boolean isGeneral() {
-        ArrayList<Line> allLines = new ArrayList<Line>();
-        for (Point p1 : points) {
-            for (Point p2 : points) {
-                if (p1 == p2) {
-                    continue;
-                }
-                allLines.add(new Line(p1, p2));
-            }
+        // if there is a line (through two of the points) with at least three points on
+        // it, we are not in general position
+        sync();
+        if (n <= Chirotope.MAX_POINTS) {
+            return chirotope().isGeneral();
         }
-        // if there is a line with at least three points on it, we are not in general
-        // position
-        for (Line lne : allLines) {
-            if (this.countPointsOn(lne) > 2) {
-                return false;
+        for (int i = 0; i < n; i++) {
+            for (int j = i + 1; j < n; j++) {
+                for (int k = 0; k < n; k++) {
+                    if (k != i && k != j && orient(i, j, k) == 0) {
+                        return false;
+                    }
+                }
             }
         }
         return true;
@@ -89,9 +435,12 @@ public class PointSet implements List<Point> {
 
     public void makeGeneral() {
         while (!isGeneral()) {
-            for (Point pnt : points) {
-                pnt.add(PVector.random2D());
+            for (Point pnt : points()) {
+                // move by a random unit vector
+                double angle = rnd.nextDouble() * 2 * Math.PI;
+                pnt.add((float) Math.cos(angle), (float) Math.sin(angle));
             }
+            changed();
         }
     }
 
@@ -100,29 +449,31 @@ public class PointSet implements List<Point> {
         // does so by taking all tuples of points and moving them an epsilon in the
         // positive
         // or negative side of the line (resulting in 4 lines per tuple of points)
-        float eps = getEpsilon(points);
+        float eps = getEpsilon();
+        floats();
         ArrayList<Line> separatingLines = new ArrayList<Line>();
-        for (int i = 0; i < points.size(); i++) {
-            Point p1 = points.get(i);
-            for (int j = i + 1; j < points.size(); j++) {
-                Point p2 = points.get(j);
+        for (int i = 0; i < n; i++) {
+            float x1 = xs[i];
+            float y1 = ys[i];
+            for (int j = i + 1; j < n; j++) {
+                float x2 = xs[j];
+                float y2 = ys[j];
                 // there are four possible lines:
                 // p1+eps,p2+eps p1-eps,p2+eps p1+eps,p2-eps p1-eps,p2-eps
                 // where +/- are perpendicular to the line thtough p1,p2
 
                 // get direction and rotate it 90 degrees
-                PVector dir = p1.dir(p2);
-                PVector normal = dir.rotate((float) (Math.PI / 2.0));
+                float dx = x1 - x2;
+                float dy = y1 - y2;
+                float len = (float) Math.sqrt(dx * dx + dy * dy);
+                float nx = -(y2 - y1) / len;
+                float ny = (x2 - x1) / len;
 
                 // calculate points
-                Point p1n = new Point(p1);
-                Point p1p = new Point(p1);
-                Point p2n = new Point(p2);
-                Point p2p = new Point(p2);
-                p1n.add(PVector.mult(normal, -eps));
-                p1p.add(PVector.mult(normal, eps));
-                p2n.add(PVector.mult(normal, -eps));
-                p2p.add(PVector.mult(normal, eps));
+                Point p1n = new Point(x1 - eps * nx, y1 - eps * ny);
+                Point p1p = new Point(x1 + eps * nx, y1 + eps * ny);
+                Point p2n = new Point(x2 - eps * nx, y2 - eps * ny);
+                Point p2p = new Point(x2 + eps * nx, y2 + eps * ny);
 
                 // and lines
                 Line l1 = new Line(p1n, p2n);
@@ -139,6 +490,12 @@ public class PointSet implements List<Point> {
         return separatingLines;
     }
 
+    public LineArrangements twoSeparators() {
+        // all pairs of lines (that can be used for 2-separability) as a lazy
+        // enumeration, see getTwoSeparators()
+        return LineArrangements.distinctPairs(getAllLines());
+    }
+
     public ArrayList<ArrayList<Line>> getTwoSeparators() {
         // returns all pairs of lines (that can be used for 2-separability)
         // does so by enumerating all tuples of separating lines (getAllLines()) and
@@ -157,16 +514,82 @@ public class PointSet implements List<Point> {
         return separators;
     }
 
+    private boolean sideMasks() {
+        // builds the masks of the points strictly below and on each candidate line,
+        // returns false if there are too many points for a long mask
+        sync();
+        if (n > 64) {
+            return false;
+        }
+        if (belowMasks == null || masksVersion != version) {
+            if (gx != null && isGeneral()) {
+                gridMasks();
+                masksVersion = version;
+                return true;
+            }
+            ArrayList<Line> allLines = getAllLines();
+            floats();
+            belowMasks = new long[allLines.size()];
+            onMasks = new long[allLines.size()];
+            for (int l = 0; l < allLines.size(); l++) {
+                Line lne = allLines.get(l);
+                for (int i = 0; i < n; i++) {
+                    int side = lne.side(xs[i], ys[i]);
+                    if (side > 0) {
+                        belowMasks[l] |= 1L << i;
+                    } else if (side == 0) {
+                        onMasks[l] |= 1L << i;
+                    }
+                }
+            }
+            masksVersion = version;
+        }
+        return true;
+    }
+
+    private void gridMasks() {
+        // the masks of the lines of getAllLines from exact grid orientations: for
+        // points in general position the epsilon shifts only decide the sides of the
+        // two points defining a line, every other point keeps its side of the line
+        // through them (the float coordinates may be too close to shift, e.g. for 16
+        // bit order types)
+        int lines = 4 * (n * (n - 1) / 2);
+        belowMasks = new long[lines];
+        onMasks = new long[lines];
+        int l = 0;
+        for (int i = 0; i < n; i++) {
+            for (int j = i + 1; j < n; j++) {
+                long below = 0;
+                for (int k = 0; k < n; k++) {
+                    if (k != i && k != j && orient(i, j, k) > 0) {
+                        below |= 1L << k;
+                    }
+                }
+                // both lines shifted to the negative side, i shifted to the positive and j
+                // to the negative side, the other way round, both to the positive side
+                belowMasks[l++] = below | 1L << i | 1L << j;
+                belowMasks[l++] = below | 1L << j;
+                belowMasks[l++] = below | 1L << i;
+                belowMasks[l++] = below;
+            }
+        }
+    }
+
     public boolean separate(PointSet subset) {
         // returns true if the given subset can be separated by two lines
         // here a subset can be separated if the two lines separate the subset from its
         // complement
         // where the ground set is this PointSet object.
-        for (ArrayList<Line> lines : getTwoSeparators()) {
+        // if a subset point is not in this set we fall back to counting
+        long selected = mask(subset);
+        if (selected >= 0 && sideMasks()) {
+            return separate(selected);
+        }
+        for (ArrayList<Line> lines : twoSeparators()) {
             int selectedBelow = subset.countPointsBelow(lines);
             int totalBelow = this.countPointsBelow(lines);
             boolean valid = selectedBelow == subset.size() && totalBelow == selectedBelow;
-            valid = valid || (selectedBelow == 0 && totalBelow == points.size() - subset.size());
+            valid = valid || (selectedBelow == 0 && totalBelow == size() - subset.size());
             if (valid) {
                 return true;
             }
@@ -174,14 +597,89 @@ public class PointSet implements List<Point> {
         return false;
     }
 
+    public boolean separate(long selected) {
+        // same as separate(PointSet) for the subset given as mask (bit i is point i),
+        // requires at most 64 points
+        if (!sideMasks()) {
+            throw new IllegalStateException("too many points for subset masks");
+        }
+        // the points below an
+        // arrangement are those on a line or below an even number of lines, i.e. the
+        // lower side of a pair of lines is a xor of their masks
+        long all = n == 64 ? -1L : (1L << n) - 1;
+        long complement = all & ~selected;
+        for (int i = 0; i < belowMasks.length; i++) {
+            long below = belowMasks[i];
+            long on = onMasks[i];
+            for (int j = i + 1; j < belowMasks.length; j++) {
+                long lower = (on | onMasks[j] | ~(below ^ belowMasks[j])) & all;
+                if (lower == selected || lower == complement) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    public BitSet nonTwoSeparableMasks() {
+        // census of the 2-separable subsets: every pair of candidate lines is visited
+        // once, its lower side and the complement are marked as separable
+        // returns the unmarked subsets, as a set of masks (bit i is point i)
+        sync();
+        if (n > MAX_CENSUS_POINTS) {
+            throw new IllegalStateException("census of " + n + " points is too large");
+        }
+        sideMasks();
+        long all = (1L << n) - 1;
+        BitSet separable = new BitSet(1 << n);
+        for (int i = 0; i < belowMasks.length; i++) {
+            long below = belowMasks[i];
+            long on = onMasks[i];
+            for (int j = i + 1; j < belowMasks.length; j++) {
+                long lower = (on | onMasks[j] | ~(below ^ belowMasks[j])) & all;
+                separable.set((int) lower);
+                separable.set((int) (all & ~lower));
+            }
+        }
+        separable.flip(0, 1 << n);
+        return separable;
+    }
+
+    public boolean forEachNonTwoSeparable(LongPredicate visitor) {
+        // visits the masks of the non-2-separable subsets (in increasing order), the
+        // visitor returns false to stop, in which case false is returned
+        BitSet masks = nonTwoSeparableMasks();
+        for (int mask = masks.nextSetBit(0); mask >= 0; mask = masks.nextSetBit(mask + 1)) {
+            if (!visitor.test(mask)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     public ArrayList<PointSet> getNonTwoSeparable() {
         // returns an array list holding the non-2-separable subsets
+        // in the order of genSubsets(), i.e. point 0 is the most significant bit
+        // (use forEachNonTwoSeparable to avoid creating the subsets)
         ArrayList<PointSet> nonSep = new ArrayList<PointSet>();
-        ArrayList<PointSet> subsets = genSubsets();
-        for (PointSet set : subsets) {
-            if (!separate(set)) {
-                nonSep.add(set);
+        if (size() > MAX_CENSUS_POINTS) {
+            return nonSep; // emptyset if too large
+        }
+        BitSet masks = nonTwoSeparableMasks();
+        ArrayList<Point> pnts = points();
+        for (int index = 0; index < (1 << n); index++) {
+            // reverse the n bits of index
+            int mask = n == 0 ? 0 : Integer.reverse(index) >>> (32 - n);
+            if (!masks.get(mask)) {
+                continue;
+            }
+            PointSet set = new PointSet();
+            for (int i = 0; i < n; i++) {
+                if ((mask & (1 << i)) != 0) {
+                    set.add(pnts.get(i));
+                }
             }
+            nonSep.add(set);
         }
         return nonSep;
     }
@@ -189,12 +687,13 @@ public class PointSet implements List<Point> {
     public ArrayList<PointSet> genSubsets() {
         // generates all possible subsets of this PointSet object
         // does so only if there are not too many points (not more than 18)
+        // larger sets can be enumerated as masks with Subsets (see subset(mask))
         ArrayList<PointSet> subsets = new ArrayList<PointSet>();
-        if (points.size() > 18) {
+        if (size() > 18) {
             return subsets; // emptyset if too large
         }
         subsets.add(new PointSet());
-        for (Point pnt : points) {
+        for (Point pnt : points()) {
             // to this timepoint subsets contains all subsets of points up to pnt (excluding
             // pnt)
             ArrayList<PointSet> newSubsets = new ArrayList<PointSet>();
@@ -219,17 +718,21 @@ public class PointSet implements List<Point> {
         // counts the points from this PointSet object below a line arrangement in lines
         // a point is below a line arrangement if it is either on the line or below an
         // even number of lines
+        floats();
         int total = 0;
-        for (Point pnt : points) {
+        for (int i = 0; i < n; i++) {
+            float x = xs[i];
+            float y = ys[i];
             int belowCount = 0;
             boolean broke = false;
             for (Line lne : lines) {
-                if (lne.isOn(pnt)) {
+                int side = lne.side(x, y);
+                if (side == 0) {
                     total += 1;
                     broke = true;
                     break;
                 }
-                if (lne.isBelow(pnt)) {
+                if (side > 0) {
                     belowCount += 1;
                 }
             }
@@ -244,17 +747,21 @@ public class PointSet implements List<Point> {
         // counts the points from this PointSet object above a line arrangement in lines
         // a point is below a line arrangement if it is on a line or below and even
         // number of lines
+        floats();
         int total = 0;
-        for (Point pnt : points) {
+        for (int i = 0; i < n; i++) {
+            float x = xs[i];
+            float y = ys[i];
             int belowCount = 0;
             boolean broke = false;
             for (Line lne : lines) {
-                if (lne.isOn(pnt)) {
+                int side = lne.side(x, y);
+                if (side == 0) {
                     total += 1;
                     broke = true;
                     break;
                 }
-                if (lne.isBelow(pnt)) {
+                if (side > 0) {
                     belowCount += 1;
                 }
             }
@@ -268,10 +775,11 @@ public class PointSet implements List<Point> {
     public int countPointsOn(ArrayList<Line> lines) {
         // counts the points from this PointSet object on a line arrangement in lines
         // a point is on a line arrangement if it is on a at least one line
+        floats();
         int total = 0;
-        for (Point pnt : points) {
+        for (int i = 0; i < n; i++) {
             for (Line lne : lines) {
-                if (lne.isOn(pnt)) {
+                if (lne.side(xs[i], ys[i]) == 0) {
                     total += 1;
                     break;
                 }
@@ -283,9 +791,10 @@ public class PointSet implements List<Point> {
     public int countPointsBelow(Line line) {
         // counts the points from this PointSet object below a line
         // a point is below a line if it is either on the line or below
+        floats();
         int total = 0;
-        for (Point pnt : points) {
-            if (line.isBelow(pnt) || line.isOn(pnt)) {
+        for (int i = 0; i < n; i++) {
+            if (line.side(xs[i], ys[i]) >= 0) {
                 total += 1;
             }
         }
@@ -295,9 +804,10 @@ public class PointSet implements List<Point> {
     public int countPointsAbove(Line line) {
         // counts the points from this PointSet object above a line
         // a point is below a line if it is on a line or above
+        floats();
         int total = 0;
-        for (Point pnt : points) {
-            if (line.isOn(pnt) || line.isAbove(pnt)) {
+        for (int i = 0; i < n; i++) {
+            if (line.side(xs[i], ys[i]) <= 0) {
                 total += 1;
             }
         }
@@ -306,9 +816,10 @@ public class PointSet implements List<Point> {
 
     public int countPointsOn(Line line) {
         // counts the points from this PointSet object on a line
+        floats();
         int total = 0;
-        for (Point pnt : points) {
-            if (line.isOn(pnt)) {
+        for (int i = 0; i < n; i++) {
+            if (line.side(xs[i], ys[i]) == 0) {
                 total += 1;
             }
         }
@@ -317,117 +828,194 @@ public class PointSet implements List<Point> {
 
     @Override
     public boolean add(Point arg0) {
-        return this.points.add(arg0);
+        boolean added = points().add(arg0);
+        modified();
+        return added;
     }
 
     @Override
     public void add(int arg0, Point arg1) {
-        this.points.add(arg0, arg1);
+        points().add(arg0, arg1);
+        modified();
     }
 
     @Override
     public boolean addAll(Collection<? extends Point> c) {
-        return this.points.addAll(c);
+        boolean added = points().addAll(c);
+        modified();
+        return added;
     }
 
     @Override
     public boolean addAll(int index, Collection<? extends Point> c) {
-        return this.points.addAll(index, c);
+        boolean added = points().addAll(index, c);
+        modified();
+        return added;
     }
 
     @Override
     public void clear() {
-        this.points.clear();
+        points().clear();
+        modified();
     }
 
     @Override
     public boolean contains(Object o) {
-        return this.points.contains(o);
+        return points().contains(o);
     }
 
     @Override
     public boolean containsAll(Collection<?> c) {
-        return this.points.containsAll(c);
+        return points().containsAll(c);
     }
 
     @Override
     public Point get(int index) {
-        return this.points.get(index);
+        return points().get(index);
     }
 
     @Override
     public int indexOf(Object o) {
-        return this.points.indexOf(o);
+        return points().indexOf(o);
     }
 
     @Override
     public boolean isEmpty() {
-        return this.points.isEmpty();
+        return size() == 0;
     }
 
     @Override
     public Iterator<Point> iterator() {
-        return this.points.iterator();
+        return new Points(points().listIterator());
     }
 
     @Override
     public int lastIndexOf(Object o) {
-        return this.points.lastIndexOf(o);
+        return points().lastIndexOf(o);
     }
 
     @Override
     public ListIterator<Point> listIterator() {
-        return this.points.listIterator();
+        return new Points(points().listIterator());
     }
 
     @Override
     public ListIterator<Point> listIterator(int index) {
-        return this.points.listIterator(index);
+        return new Points(points().listIterator(index));
     }
 
     @Override
     public boolean remove(Object o) {
-        return this.points.remove(o);
+        boolean removed = points().remove(o);
+        modified();
+        return removed;
     }
 
     @Override
     public Point remove(int index) {
-        return this.points.remove(index);
+        Point removed = points().remove(index);
+        modified();
+        return removed;
     }
 
     @Override
     public boolean removeAll(Collection<?> c) {
-        return this.points.removeAll(c);
+        boolean removed = points().removeAll(c);
+        modified();
+        return removed;
     }
 
     @Override
     public boolean retainAll(Collection<?> c) {
-        return this.points.retainAll(c);
+        boolean removed = points().retainAll(c);
+        modified();
+        return removed;
     }
 
     @Override
     public Point set(int arg0, Point arg1) {
-        return this.points.set(arg0, arg1);
+        Point previous = points().set(arg0, arg1);
+        modified();
+        return previous;
     }
 
     @Override
     public int size() {
-        return this.points.size();
+        return points == null ? n : points().size();
     }
 
     @Override
     public List<Point> subList(int fromIndex, int toIndex) {
-        return this.points.subList(fromIndex, toIndex);
+        // the view is read only: changes through it would not be seen (see modified())
+        return Collections.unmodifiableList(points().subList(fromIndex, toIndex));
     }
 
     @Override
     public Object[] toArray() {
-        return this.points.toArray();
+        return points().toArray();
     }
 
     @Override
     public <T> T[] toArray(T[] arg0) {
-        return this.points.toArray(arg0);
+        return points().toArray(arg0);
+    }
+
+    private class Points implements ListIterator<Point> {
+        // iterator over the point objects, changes made through it are changes of the
+        // set
+        private final ListIterator<Point> iterator;
+
+        Points(ListIterator<Point> iterator) {
+            this.iterator = iterator;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return iterator.hasNext();
+        }
+
+        @Override
+        public Point next() {
+            return iterator.next();
+        }
+
+        @Override
+        public boolean hasPrevious() {
+            return iterator.hasPrevious();
+        }
+
+        @Override
+        public Point previous() {
+            return iterator.previous();
+        }
+
+        @Override
+        public int nextIndex() {
+            return iterator.nextIndex();
+        }
+
+        @Override
+        public int previousIndex() {
+            return iterator.previousIndex();
+        }
+
+        @Override
+        public void remove() {
+            iterator.remove();
+            modified();
+        }
+
+        @Override
+        public void set(Point pnt) {
+            iterator.set(pnt);
+            modified();
+        }
+
+        @Override
+        public void add(Point pnt) {
+            iterator.add(pnt);
+            modified();
+        }
     }
 
 }
@@ -1,19 +1,25 @@
 package com.separability.geometry;
 
 import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
 import java.io.IOException;
 import java.io.PrintWriter;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.ListIterator;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Predicate;
+import java.util.stream.IntStream;
 
-import com.separability.Utils;
-
-import processing.core.PApplet;
 
 public class PointSetFamily implements List<PointSet> {
 
@@ -26,8 +32,56 @@ public class PointSetFamily implements List<PointSet> {
     public static final int COLOURFUL_LINES_CONSISTENT = 4; // any two lines defined by exactly 1 point of each colour
                                                             // using consistent counting
 
+    // offsets of the counts per colour in classify()
+    public static final int BELOW = 0;
+    public static final int ABOVE = 1;
+    public static final int ON = 2;
+
     private ArrayList<PointSet> pointSets;
     private int cutDefinition = CUT_LINES;
+    private boolean canonical = true;
+
+    // all points of the family packed in colour order (point i of colour c has
+    // index offsets[c] + i) and their chirotope, rebuilt lazily by ground() when
+    // point sets were added, removed or changed
+    private float[] xs = new float[0];
+    private float[] ys = new float[0];
+    private int[] offsets = { 0 };
+    private int[] colours = new int[0]; // colour of every point
+    private Chirotope chirotope = null;
+    private PointSet[] groundSets = new PointSet[0];
+    private int[] groundVersions = new int[0];
+    // colour of every point object, built lazily for lines without indices
+    private IdentityHashMap<Point, Integer> colourIndex = null;
+    // incremented whenever the packed points are rebuilt
+    private int groundStamp = 0;
+
+    // realised alpha vectors with witnesses, valid for the ground stamp, cut
+    // definition and enumeration it was built for (see alphaIndex())
+    private AlphaIndex alphaIndex = null;
+    private int alphaIndexStamp, alphaIndexDefinition;
+    private boolean alphaIndexCanonical;
+    // number of arrangements per alpha code, valid for the ground stamp and cut
+    // definition it was built for (see getAlphaCount)
+    private long[] alphaCounts = null;
+    private int alphaCountsStamp, alphaCountsDefinition;
+
+    // two-line solver for single hasAlpha queries on large cut line spaces, valid
+    // for the ground stamp and cut definition it was built for
+    private TwoLineSolver solver = null;
+    private int solverStamp, solverDefinition;
+    private AlphaSearchStats searchStats = null; // of the last solved query
+    // largest number of arrangements hasAlpha builds an alpha index for
+    private long indexLimit = 1 << 20;
+
+    // alpha vectors with multiplicities, updated by movePoint, addPoint and
+    // removePoint if incremental (see setIncremental), valid for the cut definition
+    // it was built for as long as the point sets have the recorded versions
+    private boolean incremental = false;
+    private AlphaTracker tracker = null;
+    private int trackerDefinition;
+    private PointSet[] trackerSets = new PointSet[0];
+    private int[] trackerVersions = new int[0];
 
     public PointSetFamily() {
         this.pointSets = new ArrayList<PointSet>();
@@ -45,6 +99,113 @@ public class PointSetFamily implements List<PointSet> {
         this.cutDefinition = def;
     }
 
+    public void setIndexLimit(long limit) {
+        // hasAlpha answers queries for up to limit (canonical) cut line arrangements from
+        // an index of all alpha vectors, larger spaces are searched with a two-line
+        // solver per query unless the index was already built (e.g. by a smaller limit)
+        this.indexLimit = limit;
+    }
+
+    public void setCanonical(boolean canonical) {
+        // whether alpha queries use the canonical enumeration of cut line arrangements
+        // (see arrangements(canonical)), the results are the same
+        this.canonical = canonical;
+    }
+
+    public void setIncremental(boolean incremental) {
+        // if incremental, getAllAlphaCodes (and everything based on it) keeps the alpha
+        // vectors of all arrangements with their multiplicities, and single point edits
+        // through movePoint, addPoint and removePoint update them instead of starting
+        // from scratch, any other change of the family is detected and rebuilds them
+        // (families with more than AlphaTracker.MAX_POINTS points are not tracked)
+        this.incremental = incremental;
+        if (!incremental) {
+            tracker = null;
+        }
+    }
+
+    public void movePoint(int colour, int index, float x, float y) {
+        // moves point index of the given colour to (x, y)
+        AlphaTracker tracked = validTracker();
+        Point pnt = pointSets.get(colour).get(index);
+        if (tracked != null) {
+            tracked.move(colour, index, x, y);
+        }
+        pnt.x = x;
+        pnt.y = y;
+        pointSets.get(colour).changed();
+        recordTracker(tracked);
+    }
+
+    public void addPoint(int colour, Point pnt) {
+        // adds a point to the end of the given colour
+        AlphaTracker tracked = validTracker();
+        if (tracked != null) {
+            int[] sizes = pointSets.stream().mapToInt(PointSet::size).toArray();
+            sizes[colour] += 1;
+            if (AlphaTracker.fits(sizes)) {
+                tracked.add(colour, pnt.x, pnt.y);
+            } else {
+                tracked = null;
+            }
+        }
+        pointSets.get(colour).add(pnt);
+        recordTracker(tracked);
+    }
+
+    public Point removePoint(int colour, int index) {
+        // removes point index of the given colour and returns it
+        AlphaTracker tracked = validTracker();
+        if (tracked != null) {
+            tracked.remove(colour, index);
+        }
+        Point removed = pointSets.get(colour).remove(index);
+        recordTracker(tracked);
+        return removed;
+    }
+
+    private AlphaTracker validTracker() {
+        // returns the tracker if it is still valid for the family, null otherwise
+        if (tracker == null || trackerDefinition != cutDefinition || trackerSets.length != pointSets.size()) {
+            tracker = null;
+            return null;
+        }
+        for (int c = 0; c < trackerSets.length; c++) {
+            PointSet pntSet = pointSets.get(c);
+            if (trackerSets[c] != pntSet || trackerVersions[c] != pntSet.getVersion()) {
+                tracker = null;
+                return null;
+            }
+        }
+        return tracker;
+    }
+
+    private void recordTracker(AlphaTracker tracked) {
+        // keeps tracked (or no tracker if null) for the current state of the family
+        tracker = tracked;
+        trackerDefinition = cutDefinition;
+        trackerSets = pointSets.toArray(new PointSet[pointSets.size()]);
+        trackerVersions = new int[trackerSets.length];
+        for (int c = 0; c < trackerSets.length; c++) {
+            trackerVersions[c] = trackerSets[c].getVersion();
+        }
+    }
+
+    private AlphaTracker tracker() {
+        // returns the tracker for the current family and cut definition, builds it if
+        // necessary, null if not incremental or the family is too large
+        if (!incremental) {
+            return null;
+        }
+        AlphaTracker tracked = validTracker();
+        if (tracked == null && AlphaTracker.fits(pointSets.stream().mapToInt(PointSet::size).toArray())) {
+            ground();
+            tracked = new AlphaTracker(cutDefinition, xs, ys, offsets);
+        }
+        recordTracker(tracked);
+        return tracked;
+    }
+
     public PointSetFamily copy() {
         PointSetFamily copied = new PointSetFamily();
         for (PointSet pntSet : pointSets) {
@@ -54,6 +215,9 @@ public class PointSetFamily implements List<PointSet> {
     }
 
     public boolean isGeneral() {
+        if (chirotope() != null) {
+            return chirotope.isGeneral();
+        }
         PointSet allPoints = new PointSet();
         for (PointSet pntSet : pointSets) {
             allPoints.addAll(pntSet);
@@ -69,25 +233,105 @@ public class PointSetFamily implements List<PointSet> {
         }
     }
 
-    public ArrayList<Line> cutLinesTwoCol() {
-        // returns a list of lines obtained by all tuples of different coloured points
-        ArrayList<Line> ctlns = new ArrayList<Line>();
+    public Chirotope chirotope() {
+        // returns the chirotope of all points of the family (indexed as given by
+        // offset), or null if the family has too many points for a table
+        ground();
+        return chirotope;
+    }
 
-        for (PointSet pntSet : pointSets) {
-            // collect all other points coming from different point sets
-            PointSet allOther = new PointSet();
-            for (PointSet otherSet : pointSets) {
-                if (pntSet == otherSet) {
-                    continue;
-                }
-                for (Point pnt : otherSet) {
-                    allOther.add(pnt);
+    public int offset(int colour) {
+        // returns the index of the first point of the given colour in the chirotope,
+        // offset(size()) is the total number of points
+        ground();
+        return offsets[colour];
+    }
+
+    private void ground() {
+        // rebuilds the packed points and the chirotope if the family changed since
+        // the last call
+        boolean valid = groundSets.length == pointSets.size();
+        for (int c = 0; valid && c < groundSets.length; c++) {
+            PointSet pntSet = pointSets.get(c);
+            valid = groundSets[c] == pntSet && groundVersions[c] == pntSet.getVersion();
+        }
+        if (valid) {
+            return;
+        }
+        int colours = pointSets.size();
+        groundSets = pointSets.toArray(new PointSet[colours]);
+        groundVersions = new int[colours];
+        offsets = new int[colours + 1];
+        for (int c = 0; c < colours; c++) {
+            groundVersions[c] = groundSets[c].getVersion();
+            offsets[c + 1] = offsets[c] + groundSets[c].size();
+        }
+        int total = offsets[colours];
+        xs = new float[total];
+        ys = new float[total];
+        this.colours = new int[total];
+        for (int c = 0; c < colours; c++) {
+            for (int i = 0; i < groundSets[c].size(); i++) {
+                xs[offsets[c] + i] = groundSets[c].getX(i);
+                ys[offsets[c] + i] = groundSets[c].getY(i);
+                this.colours[offsets[c] + i] = c;
+            }
+        }
+        colourIndex = null;
+        groundStamp += 1;
+        chirotope = total <= Chirotope.MAX_POINTS ? new Chirotope(total, xs, ys, null, null) : null;
+    }
+
+    private int colourOf(Line lne, boolean start) {
+        // returns the colour of the start (or end) point of a line, lines through points
+        // of this family know their indices, otherwise the points are looked up
+        // (points not in the family have colour 0)
+        if (chirotope != null && lne.getChirotope() == chirotope) {
+            return colours[start ? lne.getStartId() : lne.getEndId()];
+        }
+        return colourIndex().getOrDefault(start ? lne.getStartPoint() : lne.getEndPoint(), 0);
+    }
+
+    private IdentityHashMap<Point, Integer> colourIndex() {
+        // colour of every point object (if a point is in several point sets the last
+        // colour counts)
+        if (colourIndex == null) {
+            IdentityHashMap<Point, Integer> index = new IdentityHashMap<Point, Integer>();
+            for (int c = 0; c < pointSets.size(); c++) {
+                for (Point pnt : pointSets.get(c)) {
+                    index.put(pnt, c);
                 }
             }
+            colourIndex = index;
+        }
+        return colourIndex;
+    }
+
+    public ArrayList<Line> cutLinesTwoCol() {
+        // returns a list of lines obtained by all tuples of different coloured points
+        // the lines know the indices of their points, so side queries for points of
+        // this family are chirotope lookups
+        return cutLinesTwoCol(false);
+    }
 
-            for (Point p1 : pntSet) {
-                for (Point p2 : allOther) {
-                    ctlns.add(new Line(p1, p2));
+    private ArrayList<Line> cutLinesTwoCol(boolean canonical) {
+        // if canonical, every line is only added once (with the smaller colour first)
+        ground();
+        ArrayList<Line> ctlns = new ArrayList<Line>();
+
+        for (int c1 = 0; c1 < pointSets.size(); c1++) {
+            PointSet pntSet = pointSets.get(c1);
+            for (int i1 = 0; i1 < pntSet.size(); i1++) {
+                Point p1 = pntSet.get(i1);
+                // all other points coming from different point sets
+                for (int c2 = canonical ? c1 + 1 : 0; c2 < pointSets.size(); c2++) {
+                    if (c1 == c2) {
+                        continue;
+                    }
+                    PointSet otherSet = pointSets.get(c2);
+                    for (int i2 = 0; i2 < otherSet.size(); i2++) {
+                        ctlns.add(new Line(p1, otherSet.get(i2), chirotope, offsets[c1] + i1, offsets[c2] + i2));
+                    }
                 }
             }
         }
@@ -97,154 +341,389 @@ public class PointSetFamily implements List<PointSet> {
     public ArrayList<Line> cutLines() {
         // returns a list of lines obtained by all tuples of points (possibly of the
         // same colour)
+        return cutLines(false);
+    }
+
+    private ArrayList<Line> cutLines(boolean canonical) {
+        // if canonical, every line is only added once (with the smaller index first)
+        ground();
         ArrayList<Line> ctlns = new ArrayList<Line>();
-        PointSet allPoints = new PointSet();
+        ArrayList<Point> allPoints = new ArrayList<Point>();
         for (PointSet pntSet : pointSets) {
             for (Point pnt : pntSet) {
                 allPoints.add(pnt);
             }
         }
-        for (Point p1 : allPoints) {
-            for (Point p2 : allPoints) {
-                if (p1 == p2) {
+        for (int id1 = 0; id1 < allPoints.size(); id1++) {
+            for (int id2 = canonical ? id1 + 1 : 0; id2 < allPoints.size(); id2++) {
+                if (id1 == id2) {
                     continue;
                 }
-                ctlns.add(new Line(p1, p2));
+                ctlns.add(new Line(allPoints.get(id1), allPoints.get(id2), chirotope, id1, id2));
             }
         }
         return ctlns;
     }
 
     public ArrayList<PointSet> colourfulPointSets() {
-        // returns all colourful point sets as an ArrayList
+        // returns all colourful point sets as an ArrayList, see forEachColourful for an
+        // enumeration that does not create them
         ArrayList<PointSet> clfl = new ArrayList<PointSet>();
         if (pointSets.size() == 0) {
             return clfl;
         }
-        int[] indices = new int[pointSets.size()]; // initialized with all 0
-        while (true) {
-            // indices now defines a colourful point set
+        Point[] pnts = groundPoints();
+        forEachColourful(0, colourfulCount(), ids -> {
             PointSet colful = new PointSet();
-            for (int i = 0; i < indices.length; i++) {
-                if (pointSets.get(i).size() == 0) {
-                    continue;
-                }
-                colful.add(pointSets.get(i).get(indices[i]));
+            for (int id : ids) {
+                colful.add(pnts[id]);
             }
             clfl.add(colful);
+            return true;
+        });
+        return clfl;
+    }
+
+    public long colourfulCount() {
+        // number of colourful point sets (empty colours are skipped)
+        long count = pointSets.size() == 0 ? 0 : 1;
+        for (PointSet ps : pointSets) {
+            if (ps.size() > 0) {
+                count *= ps.size();
+            }
+        }
+        return count;
+    }
 
-            // get next index set
-            boolean broke = false;
-            for (int i = 0; i < indices.length; i++) {
-                if (indices[i] < pointSets.get(i).size() - 1) {
-                    indices[i] = indices[i] + 1;
-                    broke = true;
+    public boolean forEachColourful(long from, long to, Predicate<int[]> visitor) {
+        // visits the colourful point sets [from, to) in the order of
+        // colourfulPointSets(), a set is given by the indices of its points in the
+        // ground set (see offset, one per non-empty colour) in a buffer that is reused
+        // for all sets, the i-th set is the mixed-radix number i with the index in
+        // colour 0 as least significant digit, so ranges can be given to different
+        // workers
+        // returns false if the visitor stopped the enumeration
+        ground();
+        int[] colours = IntStream.range(0, pointSets.size()).filter(c -> offsets[c + 1] > offsets[c]).toArray();
+        int[] ids = new int[colours.length];
+        long rest = from;
+        for (int i = 0; i < colours.length; i++) {
+            int size = offsets[colours[i] + 1] - offsets[colours[i]];
+            ids[i] = offsets[colours[i]] + (int) (rest % size);
+            rest /= size;
+        }
+        for (long index = from; index < to; index++) {
+            if (!visitor.test(ids)) {
+                return false;
+            }
+            // next index tuple
+            for (int i = 0; i < colours.length; i++) {
+                ids[i] += 1;
+                if (ids[i] < offsets[colours[i] + 1]) {
                     break;
-                } else {
-                    indices[i] = 0;
                 }
+                ids[i] = offsets[colours[i]];
             }
-            // no more indices to increase, terminate while loop
-            if (!broke) {
-                break;
+        }
+        return true;
+    }
+
+    private Point[] groundPoints() {
+        // the points of all colours by their index in the ground set
+        ground();
+        Point[] pnts = new Point[offsets[pointSets.size()]];
+        for (int c = 0; c < pointSets.size(); c++) {
+            for (int i = 0; i < pointSets.get(c).size(); i++) {
+                pnts[offsets[c] + i] = pointSets.get(c).get(i);
             }
         }
+        return pnts;
+    }
 
-        return clfl;
+    public LineArrangements arrangements() {
+        // returns all possible line arrangements under the current cut definition as a
+        // lazy enumeration, the arrangements are created while iterating
+        return arrangements(false);
     }
 
-    public ArrayList<ArrayList<Line>> lineArrangements() {
-        // returns all possible line arrangements under the current cut definition
+    public LineArrangements arrangements(boolean canonical) {
+        // if canonical, cut line arrangements are enumerated without symmetric copies:
+        // every line once (not in both directions) and every pair of lines once
+        // (including pairs of the same line), LineArrangements.multiplicity gives the
+        // number of arrangements of the full enumeration it stands for
+        // the alpha vectors (and witnesses) are the same as for the full enumeration
         if (cutDefinition == CUT_LINES || cutDefinition == CUT_LINES_TWO_COL) {
             // if cut lines, we need to enumerate all cutLines, depending whether we need
             // two coloured or arbitrary cut lines
             // the line arrangements are then given by all possible tuples of the cut lines
             boolean twoColoured = cutDefinition == CUT_LINES_TWO_COL;
             // twoColoured is set, the lines are all defined by different coloured points
-            ArrayList<Line> ctlns = twoColoured ? cutLinesTwoCol() : cutLines();
-
-            ArrayList<ArrayList<Line>> lneArrangements = new ArrayList<ArrayList<Line>>();
-            for (Line l1 : ctlns) {
-                for (Line l2 : ctlns) {
-                    ArrayList<Line> lnes = new ArrayList<Line>();
-                    lnes.add(l1);
-                    lnes.add(l2);
-                    lneArrangements.add(lnes);
-                }
-            }
-            return lneArrangements;
+            ArrayList<Line> ctlns = twoColoured ? cutLinesTwoCol(canonical) : cutLines(canonical);
+            return canonical ? LineArrangements.canonicalPairs(ctlns) : LineArrangements.orderedPairs(ctlns);
         }
         if (cutDefinition == COLOURFUL_LINES || cutDefinition == COLOURFUL_LINES_CONSISTENT
                 || cutDefinition == COLOURFUL_LINES_FIXED) {
             // for colourful point sets, the line arrangements are defined by, well,
             // colourful point sets, if the colours are fixed only one arrangement per set
             // is added, otherwise all three possible arrangements per set
-            ArrayList<PointSet> clfl = colourfulPointSets();
+            // fixedColours: the lines are always given by the first line through the first
+            // two colours and the second line through the second two colours
+            // the colourful point sets are enumerated by the arrangements (without creating
+            // them), they only need the lines through two different colours
             boolean fixedColours = cutDefinition == COLOURFUL_LINES_FIXED;
-            ArrayList<ArrayList<Line>> lneArrangements = new ArrayList<ArrayList<Line>>();
-            for (PointSet ps : clfl) {
-                if (ps.size() != 4) {
-                    // colourful lines only defined for 4 colours, return empty list
-                    return new ArrayList<ArrayList<Line>>();
-                }
-                Point p1 = ps.get(0);
-                Point p2 = ps.get(1);
-                Point p3 = ps.get(2);
-                Point p4 = ps.get(3);
-                ArrayList<Line> lnes = new ArrayList<Line>();
-
-                // p1-p2, p3-p4
-                lnes.add(new Line(p1, p2));
-                lnes.add(new Line(p3, p4));
-                lneArrangements.add(lnes);
-                // fixedColours: the lines are always given by the first line through the first
-                // two colours and the second line through the second two colours
-                if (fixedColours) {
-                    continue;
+            if (pointSets.size() != 4) {
+                // colourful lines only defined for 4 colours, return empty list
+                return LineArrangements.empty();
+            }
+            ground();
+            for (int c = 0; c < 4; c++) {
+                if (offsets[c + 1] == offsets[c]) {
+                    // empty colours are skipped, so again less than 4 colours
+                    return LineArrangements.empty();
                 }
-                // p1-p3, p2-p4
-                lnes = new ArrayList<Line>();
-                lnes.add(new Line(p1, p3));
-                lnes.add(new Line(p2, p4));
-                lneArrangements.add(lnes);
+            }
+            return new LineArrangements(colourfulLines(), offsets.clone(), fixedColours);
+        }
+        return LineArrangements.empty();
+    }
 
-                // p1-p4, p2-p3
-                lnes = new ArrayList<Line>();
-                lnes.add(new Line(p1, p4));
-                lnes.add(new Line(p2, p3));
-                lneArrangements.add(lnes);
+    public ArrayList<ArrayList<Line>> lineArrangements() {
+        // returns all possible line arrangements under the current cut definition
+        // (as copies, use arrangements() to iterate without storing them)
+        ArrayList<ArrayList<Line>> lneArrangements = new ArrayList<ArrayList<Line>>();
+        for (ArrayList<Line> lnes : arrangements()) {
+            lneArrangements.add(new ArrayList<Line>(lnes));
+        }
+        return lneArrangements;
+    }
+
+    private Line[] colourfulLines() {
+        // returns the lines through all points with indices a < b of different colours
+        // at [a * n + b], where n is the number of points
+        int total = offsets[pointSets.size()];
+        Point[] pnts = groundPoints();
+        Line[] pairLines = new Line[total * total];
+        for (int c1 = 0; c1 < pointSets.size(); c1++) {
+            for (int a = offsets[c1]; a < offsets[c1 + 1]; a++) {
+                for (int b = offsets[c1 + 1]; b < total; b++) {
+                    pairLines[a * total + b] = new Line(pnts[a], pnts[b], chirotope, a, b);
+                }
             }
-            return lneArrangements;
         }
-        return new ArrayList<ArrayList<Line>>();
+        return pairLines;
     }
 
     public boolean hasAlpha(ArrayList<Integer> alpha, ArrayList<Line> lines) {
         // returns true if the there is an alpha cut for given alpha vector
         // if lines is not null, will replace lines with the corresponding line
         // arrangement
-        ArrayList<ArrayList<Line>> lneArrangements = lineArrangements();
-        for (ArrayList<Line> lnes : lneArrangements) {
-            if (matchesAlpha(lnes, alpha)) {
+        // the first call builds an index of all realised alpha vectors (for the current
+        // cut definition), further calls are lookups until the family changes
+        // for too many cut line arrangements the query is solved directly instead
+        if (!inAlphaBox(alpha)) {
+            return false;
+        }
+        TwoLineSolver solver = useSolver() ? twoLineSolver() : null;
+        if (solver != null) {
+            searchStats = new AlphaSearchStats();
+            return solver.solve(alpha, lines, searchStats);
+        }
+        AlphaIndex index = alphaIndex();
+        if (index == null) {
+            return scanAlpha(alpha, lines);
+        }
+        long code = alphaCode(alpha);
+        if (!index.contains(code)) {
+            return false;
+        }
+        if (lines != null) {
+            index.witness(code, lines);
+        }
+        return true;
+    }
+
+    private boolean inAlphaBox(List<Integer> alpha) {
+        // returns true if alpha has one entry per colour, each in [0, |P_c|]
+        if (alpha.size() != pointSets.size()) {
+            return false;
+        }
+        for (int c = 0; c < alpha.size(); c++) {
+            if (alpha.get(c) < 0 || alpha.get(c) > pointSets.get(c).size()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public AlphaSearchStats getSearchStats() {
+        // returns the explored and pruned nodes of the last hasAlpha query that was
+        // solved by a search (not by the alpha index), null if there was none
+        return searchStats;
+    }
+
+    private boolean useSolver() {
+        // returns true if hasAlpha should use the two-line solver: cut lines only, no
+        // valid alpha index, too many arrangements and at most 64 points per colour
+        ground();
+        if (cutDefinition != CUT_LINES && cutDefinition != CUT_LINES_TWO_COL) {
+            return false;
+        }
+        if (alphaIndex != null && alphaIndexStamp == groundStamp && alphaIndexDefinition == cutDefinition
+                && alphaIndexCanonical == canonical) {
+            return false;
+        }
+        long total = offsets[pointSets.size()];
+        long cutLineCount = total * (total - 1) / 2;
+        if (cutDefinition == CUT_LINES_TWO_COL) {
+            for (int c = 0; c < pointSets.size(); c++) {
+                long size = offsets[c + 1] - offsets[c];
+                cutLineCount -= size * (size - 1) / 2;
+            }
+        }
+        if (cutLineCount * (cutLineCount + 1) / 2 <= indexLimit) {
+            return false;
+        }
+        for (int c = 0; c < pointSets.size(); c++) {
+            if (offsets[c + 1] - offsets[c] > 64) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private TwoLineSolver twoLineSolver() {
+        // returns the two-line solver for the current family and cut definition
+        if (solver == null || solverStamp != groundStamp || solverDefinition != cutDefinition) {
+            ArrayList<Line> ctlns = cutDefinition == CUT_LINES_TWO_COL ? cutLinesTwoCol(true) : cutLines(true);
+            solver = new TwoLineSolver(ctlns, offsets, chirotope, xs, ys);
+            solverStamp = groundStamp;
+            solverDefinition = cutDefinition;
+        }
+        return solver;
+    }
+
+    private boolean scanAlpha(ArrayList<Integer> alpha, ArrayList<Line> lines) {
+        // hasAlpha by testing every arrangement, for families whose alpha codes do
+        // not fit into a long
+        int[] counts = new int[3 * pointSets.size()];
+        for (ArrayList<Line> lnes : arrangements(canonical)) {
+            if (matches(lnes, alpha, counts)) {
                 if (lines != null) {
                     lines.clear();
                     lines.addAll(lnes);
                 }
                 return true;
             }
-
         }
         return false;
     }
 
+    private AlphaIndex alphaIndex() {
+        // returns the alpha index for the current family and cut definition, rebuilds
+        // it if anything changed, null if the alpha codes do not fit into a long
+        ground();
+        if (alphaIndex != null && alphaIndexStamp == groundStamp && alphaIndexDefinition == cutDefinition
+                && alphaIndexCanonical == canonical) {
+            return alphaIndex;
+        }
+        long box;
+        try {
+            box = alphaBoxSize();
+        } catch (ArithmeticException e) {
+            return null;
+        }
+        LineArrangements arrangements = arrangements(canonical);
+        ground();
+        int colours = pointSets.size();
+        long[] place = new long[colours];
+        for (int c = 0; c < colours; c++) {
+            place[c] = c == 0 ? 1 : place[c - 1] * (pointSets.get(c - 1).size() + 1);
+        }
+        AlphaIndex index = new AlphaIndex(arrangements, box);
+        ArrayList<Line> lnes = new ArrayList<Line>(2);
+        int[] counts = new int[3 * colours];
+        int[] free = new int[colours];
+        for (int row = 0; row < arrangements.rows(); row++) {
+            for (int column = 0; column < arrangements.columns(row); column++) {
+                arrangements.get(row, column, lnes);
+                classifyPoints(lnes, counts);
+                for (boolean neg : new boolean[] { false, true }) {
+                    int side = countNegative(neg, lnes) ? ABOVE : BELOW;
+                    long code = 0;
+                    int freeCount = 0;
+                    for (int c = 0; c < colours; c++) {
+                        code += place[c] * (counts[3 * c + side] + counts[3 * c + ON]);
+                        // a zero in the alpha vector also matches if all counted points are on
+                        // the arrangement (see matchesAlpha)
+                        if (counts[3 * c + side] == 0 && counts[3 * c + ON] > 0) {
+                            free[freeCount++] = c;
+                        }
+                    }
+                    for (int zeros = 0; zeros < (1 << freeCount); zeros++) {
+                        long variant = code;
+                        for (int f = 0; f < freeCount; f++) {
+                            if ((zeros & (1 << f)) != 0) {
+                                variant -= place[free[f]] * counts[3 * free[f] + ON];
+                            }
+                        }
+                        index.record(variant, row, column);
+                    }
+                }
+            }
+        }
+        alphaIndex = index;
+        alphaIndexStamp = groundStamp;
+        alphaIndexDefinition = cutDefinition;
+        alphaIndexCanonical = canonical;
+        return index;
+    }
+
     public ArrayList<Integer> getAlpha(boolean neg, ArrayList<Line> lines) {
         // returns the alpha vector for the given line arrangement and side to count
         // (neg = true: count negative side), neg is ignored if
         // cutDefinition == COLOURFUL_LINES_FIXED || cutDefinition ==
         // COLOURFUL_LINES_CONSISTENT
+        ground();
+        return alpha(neg, lines);
+    }
+
+    private ArrayList<Integer> alpha(boolean neg, ArrayList<Line> lines) {
+        // getAlpha without updating the packed points, so it only reads the family and
+        // can be used by parallel workers
+        int[] counts = classifyPoints(lines, null);
+        int side = countNegative(neg, lines) ? ABOVE : BELOW;
         ArrayList<Integer> alpha = new ArrayList<Integer>();
+        for (int c = 0; c < pointSets.size(); c++) {
+            alpha.add(counts[3 * c + side] + counts[3 * c + ON]);
+        }
+        return alpha;
+    }
 
-        if (cutDefinition == COLOURFUL_LINES_FIXED || cutDefinition == COLOURFUL_LINES_CONSISTENT) {
+    private long alphaCode(boolean neg, ArrayList<Line> lines, int[] counts) {
+        // same as alphaCode(alpha(neg, lines)) for the classification counts of lines,
+        // without creating the alpha vector
+        return sideCode(countNegative(neg, lines) ? ABOVE : BELOW, counts);
+    }
+
+    private long sideCode(int side, int[] counts) {
+        // the alpha code counting the given side (BELOW or ABOVE) and the points on
+        // the arrangement
+        long code = 0;
+        for (int c = pointSets.size() - 1; c >= 0; c--) {
+            code = code * (offsets[c + 1] - offsets[c] + 1) + counts[3 * c + side] + counts[3 * c + ON];
+        }
+        return code;
+    }
+
+    private boolean countNegative(boolean neg, ArrayList<Line> lines) {
+        // returns whether the negative side is counted, this is neg unless the cut
+        // definition gives a consistent side
+        return countNegative(cutDefinition, neg, lines);
+    }
+
+    private boolean countNegative(int definition, boolean neg, ArrayList<Line> lines) {
+        // countNegative for the given cut definition
+        if (definition == COLOURFUL_LINES_FIXED || definition == COLOURFUL_LINES_CONSISTENT) {
 
             // if cutDef is fixed colourful pointset, we have a consistent notion of + and -
             // we may assume that lines.get(0) passes through pointSets.get(0),
@@ -263,68 +742,402 @@ public class PointSetFamily implements List<PointSet> {
             Line l2 = lines.get(1);
 
             // determine orientation of l1
-            Point first = l1.getStartPoint();
-            Point second = l1.getEndPoint();
-
-            int firstIndex = 0;
-            int secondIndex = 0;
-
-            for (int i = 0; i < pointSets.size(); i++) {
-                if (pointSets.get(i).contains(first)) {
-                    firstIndex = i;
-                }
-                if (pointSets.get(i).contains(second)) {
-                    secondIndex = i;
-                }
-            }
-            boolean firstPos = firstIndex < secondIndex;
+            boolean firstPos = colourOf(l1, true) < colourOf(l1, false);
             // determine orientation of l2
-
-            first = l2.getStartPoint();
-            second = l2.getEndPoint();
-
-            firstIndex = 0;
-            secondIndex = 0;
-
-            for (int i = 0; i < pointSets.size(); i++) {
-                if (pointSets.get(i).contains(first)) {
-                    firstIndex = i;
-                }
-                if (pointSets.get(i).contains(second)) {
-                    secondIndex = i;
-                }
-            }
-            boolean secondPos = firstIndex < secondIndex;
+            boolean secondPos = colourOf(l2, true) < colourOf(l2, false);
             if (firstPos && secondPos || !firstPos && !secondPos) {
                 neg = false;
             } else {
                 neg = true;
             }
         }
+        return neg;
+    }
+
+    public long alphaBoxSize() {
+        // returns the number of possible alpha vectors, i.e. the product of |P_i| + 1
+        long box = 1;
+        for (PointSet pntSet : pointSets) {
+            box = Math.multiplyExact(box, pntSet.size() + 1);
+        }
+        return box;
+    }
 
+    public long alphaCode(List<Integer> alpha) {
+        // encodes an alpha vector as one mixed-radix number in [0, alphaBoxSize()),
+        // colour 0 is the least significant digit (with radix |P_0| + 1)
+        long code = 0;
+        for (int c = alpha.size() - 1; c >= 0; c--) {
+            code = code * (pointSets.get(c).size() + 1) + alpha.get(c);
+        }
+        return code;
+    }
+
+    public ArrayList<Integer> alphaOf(long code) {
+        // decodes an alpha code (see alphaCode)
+        ArrayList<Integer> alpha = new ArrayList<Integer>();
         for (PointSet pntSet : pointSets) {
-            if (neg) {
-                alpha.add(pntSet.countPointsAbove(lines));
-            } else {
-                alpha.add(pntSet.countPointsBelow(lines));
-            }
+            int radix = pntSet.size() + 1;
+            alpha.add((int) (code % radix));
+            code /= radix;
         }
         return alpha;
     }
 
+    public int[] classify(ArrayList<Line> lines, int[] counts) {
+        // classifies every point of the family against the line arrangement (in one
+        // pass) and returns the number of points of colour c strictly below, strictly
+        // above and on the arrangement in counts[3 * c + BELOW], counts[3 * c + ABOVE]
+        // and counts[3 * c + ON], counts is reused if it is large enough
+        // a point is below the arrangement if it is below an even number of lines
+        ground();
+        return classifyPoints(lines, counts);
+    }
+
+    private int[] classifyPoints(ArrayList<Line> lines, int[] counts) {
+        // classify without updating the packed points (for parallel workers), lines
+        // through two points of this family look up the sides in the chirotope
+        int colours = offsets.length - 1;
+        if (counts == null || counts.length < 3 * colours) {
+            counts = new int[3 * colours];
+        }
+        for (int c = 0; c < colours; c++) {
+            int below = 0;
+            int above = 0;
+            int on = 0;
+            for (int id = offsets[c]; id < offsets[c + 1]; id++) {
+                int belowCount = 0;
+                boolean isOn = false;
+                for (int l = 0; l < lines.size(); l++) {
+                    int side = lines.get(l).side(chirotope, id, xs[id], ys[id]);
+                    if (side == 0) {
+                        isOn = true;
+                        break;
+                    }
+                    if (side > 0) {
+                        belowCount += 1;
+                    }
+                }
+                if (isOn) {
+                    on += 1;
+                } else if (belowCount % 2 == 0) {
+                    below += 1;
+                } else {
+                    above += 1;
+                }
+            }
+            counts[3 * c + BELOW] = below;
+            counts[3 * c + ABOVE] = above;
+            counts[3 * c + ON] = on;
+        }
+        return counts;
+    }
+
     public Set<ArrayList<Integer>> getAllAlpha() {
         // returns a set of all alpha vectors having an alpha cut under current cut
         // definition
-        ArrayList<ArrayList<Line>> lneArrangements = lineArrangements();
+        return getAllAlpha(null);
+    }
+
+    public Set<ArrayList<Integer>> getAllAlpha(ForkJoinPool pool) {
+        // same as getAllAlpha(), if pool is not null the arrangements are evaluated in
+        // parallel (see getAllAlphaCodes(pool))
         Set<ArrayList<Integer>> allAlpha = new HashSet<ArrayList<Integer>>();
-        for (ArrayList<Line> lnes : lneArrangements) {
-            allAlpha.add(getAlpha(false, lnes));
-            allAlpha.add(getAlpha(true, lnes));
+        BitSet codes = getAllAlphaCodes(pool);
+        for (int code = codes.nextSetBit(0); code >= 0; code = codes.nextSetBit(code + 1)) {
+            allAlpha.add(alphaOf(code));
         }
         return allAlpha;
     }
 
+    public BitSet getAllAlphaCodes(ForkJoinPool pool) {
+        // returns the alpha vectors having an alpha cut under current cut definition,
+        // as set of alpha codes (see alphaCode)
+        // if pool is not null the arrangements are split (by rows) over the pool, every
+        // task marks its alpha codes and the sets are merged, the family must not be
+        // changed while this runs
+        // if incremental (see setIncremental) the tracked codes are returned, the
+        // tracker is built without the pool
+        long box = alphaBoxSize();
+        if (box > Integer.MAX_VALUE) {
+            throw new IllegalStateException("alpha box of " + box + " vectors is too large");
+        }
+        AlphaTracker tracked = tracker();
+        if (tracked != null) {
+            return tracked.codes();
+        }
+        LineArrangements arrangements = arrangements(canonical);
+        ground();
+        if (cutDefinition == COLOURFUL_LINES_FIXED || cutDefinition == COLOURFUL_LINES_CONSISTENT) {
+            // build the colour index before the workers need it
+            colourIndex();
+        }
+        if (pool == null) {
+            return collectAlpha(arrangements, 0, arrangements.rows());
+        }
+        return pool.invoke(new AlphaTask(arrangements, 0, arrangements.rows()));
+    }
+
+    public long[] getAlphaCounts(ForkJoinPool pool) {
+        // returns for every alpha code (see alphaCode) the number of arrangements
+        // realising it under the current cut definition, an arrangement realises the
+        // alpha vectors of its sides (getAlpha(false, ...) and getAlpha(true, ...)) and
+        // is counted once per alpha vector
+        // arrangements are counted as in the brute force enumeration, i.e. a canonical
+        // arrangement counts with its multiplicity (see LineArrangements.multiplicity)
+        // if pool is not null the rows are split over the pool, every task counts into
+        // its own array and the arrays are added, the family must not be changed while
+        // this runs, if incremental (see setIncremental) the tracked counts are returned
+        long box = alphaBoxSize();
+        if (box > Integer.MAX_VALUE) {
+            throw new IllegalStateException("alpha box of " + box + " vectors is too large");
+        }
+        AlphaTracker tracked = tracker();
+        if (tracked != null) {
+            return tracked.multiplicities();
+        }
+        LineArrangements arrangements = arrangements(canonical);
+        ground();
+        if (cutDefinition == COLOURFUL_LINES_FIXED || cutDefinition == COLOURFUL_LINES_CONSISTENT) {
+            colourIndex();
+        }
+        if (pool == null) {
+            long[] counts = new long[(int) box];
+            countAlpha(arrangements, 0, arrangements.rows(), counts);
+            return counts;
+        }
+        return pool.invoke(new CountTask(arrangements, 0, arrangements.rows(), (int) box));
+    }
+
+    public long getAlphaCount(List<Integer> alpha) {
+        // returns the number of arrangements realising the alpha vector (see
+        // getAlphaCounts), 0 if alpha is not in the alpha box of the family
+        // the first call counts the alpha codes of all arrangements, further calls are
+        // lookups until the family or the cut definition changes
+        if (!inAlphaBox(alpha)) {
+            return 0;
+        }
+        long code = alphaCode(alpha);
+        AlphaTracker tracked = tracker();
+        if (tracked != null) {
+            return tracked.multiplicity(code);
+        }
+        ground();
+        if (alphaCounts == null || alphaCountsStamp != groundStamp || alphaCountsDefinition != cutDefinition) {
+            alphaCounts = getAlphaCounts(null);
+            alphaCountsStamp = groundStamp;
+            alphaCountsDefinition = cutDefinition;
+        }
+        return alphaCounts[(int) code];
+    }
+
+    private void countAlpha(LineArrangements arrangements, int fromRow, int toRow, long[] counts) {
+        // adds the arrangements of the rows [fromRow, toRow) to the counts of their
+        // alpha codes
+        ArrayList<Line> lnes = new ArrayList<Line>(2);
+        int[] classes = new int[3 * pointSets.size()];
+        for (int row = fromRow; row < toRow; row++) {
+            for (int column = 0; column < arrangements.columns(row); column++) {
+                arrangements.get(row, column, lnes);
+                classifyPoints(lnes, classes);
+                int lower = (int) alphaCode(false, lnes, classes);
+                int upper = (int) alphaCode(true, lnes, classes);
+                counts[lower] += arrangements.multiplicity(row, column);
+                if (upper != lower) {
+                    counts[upper] += arrangements.multiplicity(row, column);
+                }
+            }
+        }
+    }
+
+    private class CountTask extends RecursiveTask<long[]> {
+        // counts the alpha codes of the rows [fromRow, toRow), splits in halves as long
+        // as there are more arrangements than alpha codes (and AlphaTask.THRESHOLD), so
+        // allocating the counters does not dominate
+        private static final long serialVersionUID = 1L;
+
+        private final LineArrangements arrangements;
+        private final int fromRow, toRow;
+        private final int box;
+
+        CountTask(LineArrangements arrangements, int fromRow, int toRow, int box) {
+            this.arrangements = arrangements;
+            this.fromRow = fromRow;
+            this.toRow = toRow;
+            this.box = box;
+        }
+
+        @Override
+        protected long[] compute() {
+            if (toRow - fromRow < 2 || arrangements.size(fromRow, toRow) <= Math.max(AlphaTask.THRESHOLD, box)) {
+                long[] counts = new long[box];
+                countAlpha(arrangements, fromRow, toRow, counts);
+                return counts;
+            }
+            int mid = (fromRow + toRow) >>> 1;
+            CountTask left = new CountTask(arrangements, fromRow, mid, box);
+            left.fork();
+            long[] counts = new CountTask(arrangements, mid, toRow, box).compute();
+            long[] leftCounts = left.join();
+            for (int code = 0; code < box; code++) {
+                counts[code] += leftCounts[code];
+            }
+            return counts;
+        }
+    }
+
+    private BitSet collectAlpha(LineArrangements arrangements, int fromRow, int toRow) {
+        // alpha codes of the arrangements in the rows [fromRow, toRow)
+        BitSet codes = new BitSet();
+        int[] counts = new int[3 * pointSets.size()];
+        arrangements.spliterator(fromRow, toRow).forEachRemaining(lnes -> {
+            classifyPoints(lnes, counts);
+            codes.set((int) alphaCode(false, lnes, counts));
+            codes.set((int) alphaCode(true, lnes, counts));
+        });
+        return codes;
+    }
+
+    private class AlphaTask extends RecursiveTask<BitSet> {
+        // collects the alpha codes of the rows [fromRow, toRow), splits in halves as
+        // long as there are enough arrangements
+        private static final long serialVersionUID = 1L;
+        private static final long THRESHOLD = 4096;
+
+        private final LineArrangements arrangements;
+        private final int fromRow, toRow;
+
+        AlphaTask(LineArrangements arrangements, int fromRow, int toRow) {
+            this.arrangements = arrangements;
+            this.fromRow = fromRow;
+            this.toRow = toRow;
+        }
+
+        @Override
+        protected BitSet compute() {
+            if (toRow - fromRow < 2 || arrangements.size(fromRow, toRow) <= THRESHOLD) {
+                return collectAlpha(arrangements, fromRow, toRow);
+            }
+            int mid = (fromRow + toRow) >>> 1;
+            AlphaTask left = new AlphaTask(arrangements, fromRow, mid);
+            left.fork();
+            BitSet codes = new AlphaTask(arrangements, mid, toRow).compute();
+            codes.or(left.join());
+            return codes;
+        }
+    }
+
+    public ArrayList<Set<ArrayList<Integer>>> getAllAlphaPerDefinition(ForkJoinPool pool) {
+        // returns getAllAlpha() for every cut definition (the list is indexed by
+        // CUT_LINES, ..., COLOURFUL_LINES_CONSISTENT), computed in one pass (see
+        // getAllAlphaCodesPerDefinition)
+        ArrayList<Set<ArrayList<Integer>>> perDefinition = new ArrayList<Set<ArrayList<Integer>>>();
+        for (BitSet codes : getAllAlphaCodesPerDefinition(pool)) {
+            Set<ArrayList<Integer>> allAlpha = new HashSet<ArrayList<Integer>>();
+            for (int code = codes.nextSetBit(0); code >= 0; code = codes.nextSetBit(code + 1)) {
+                allAlpha.add(alphaOf(code));
+            }
+            perDefinition.add(allAlpha);
+        }
+        return perDefinition;
+    }
+
+    public BitSet[] getAllAlphaCodesPerDefinition(ForkJoinPool pool) {
+        // returns getAllAlphaCodes(pool) for every cut definition (indexed by CUT_LINES,
+        // ..., COLOURFUL_LINES_CONSISTENT) in one pass, independent of the current cut
+        // definition
+        // the arrangements of the colourful definitions are the pairs of lines through
+        // four different colours, these are arrangements of CUT_LINES_TWO_COL (both
+        // lines through two colours), which are arrangements of CUT_LINES, so the
+        // canonical cut line arrangements are classified once and their alpha codes
+        // are marked for every definition they belong to
+        long box = alphaBoxSize();
+        if (box > Integer.MAX_VALUE) {
+            throw new IllegalStateException("alpha box of " + box + " vectors is too large");
+        }
+        LineArrangements arrangements = LineArrangements.canonicalPairs(cutLines(true));
+        ground();
+        colourIndex();
+        if (pool == null) {
+            return tagAlpha(arrangements, 0, arrangements.rows());
+        }
+        return pool.invoke(new TagTask(arrangements, 0, arrangements.rows()));
+    }
+
+    private BitSet[] tagAlpha(LineArrangements arrangements, int fromRow, int toRow) {
+        // alpha codes per cut definition of the cut line arrangements in the rows
+        // [fromRow, toRow)
+        BitSet[] codes = new BitSet[COLOURFUL_LINES_CONSISTENT + 1];
+        for (int def = CUT_LINES; def <= COLOURFUL_LINES_CONSISTENT; def++) {
+            codes[def] = new BitSet();
+        }
+        boolean colourful = pointSets.size() == 4;
+        int[] counts = new int[3 * pointSets.size()];
+        arrangements.spliterator(fromRow, toRow).forEachRemaining(lnes -> {
+            classifyPoints(lnes, counts);
+            int lower = (int) sideCode(BELOW, counts);
+            int upper = (int) sideCode(ABOVE, counts);
+            codes[CUT_LINES].set(lower);
+            codes[CUT_LINES].set(upper);
+            int first = (1 << colourOf(lnes.get(0), true)) | (1 << colourOf(lnes.get(0), false));
+            int second = (1 << colourOf(lnes.get(1), true)) | (1 << colourOf(lnes.get(1), false));
+            if (Integer.bitCount(first) != 2 || Integer.bitCount(second) != 2) {
+                return;
+            }
+            codes[CUT_LINES_TWO_COL].set(lower);
+            codes[CUT_LINES_TWO_COL].set(upper);
+            if (!colourful || (first | second) != 15) {
+                return;
+            }
+            codes[COLOURFUL_LINES].set(lower);
+            codes[COLOURFUL_LINES].set(upper);
+            // the consistent definitions count one side, the same for both
+            int consistent = countNegative(COLOURFUL_LINES_CONSISTENT, false, lnes) ? upper : lower;
+            codes[COLOURFUL_LINES_CONSISTENT].set(consistent);
+            if (first == 3 || first == 12) {
+                // the lines go through the first two and the last two colours
+                codes[COLOURFUL_LINES_FIXED].set(consistent);
+            }
+        });
+        return codes;
+    }
+
+    private class TagTask extends RecursiveTask<BitSet[]> {
+        // tags the alpha codes of the rows [fromRow, toRow) per cut definition, splits
+        // like AlphaTask
+        private static final long serialVersionUID = 1L;
+
+        private final LineArrangements arrangements;
+        private final int fromRow, toRow;
+
+        TagTask(LineArrangements arrangements, int fromRow, int toRow) {
+            this.arrangements = arrangements;
+            this.fromRow = fromRow;
+            this.toRow = toRow;
+        }
+
+        @Override
+        protected BitSet[] compute() {
+            if (toRow - fromRow < 2 || arrangements.size(fromRow, toRow) <= AlphaTask.THRESHOLD) {
+                return tagAlpha(arrangements, fromRow, toRow);
+            }
+            int mid = (fromRow + toRow) >>> 1;
+            TagTask left = new TagTask(arrangements, fromRow, mid);
+            left.fork();
+            BitSet[] codes = new TagTask(arrangements, mid, toRow).compute();
+            BitSet[] leftCodes = left.join();
+            for (int def = CUT_LINES; def <= COLOURFUL_LINES_CONSISTENT; def++) {
+                codes[def].or(leftCodes[def]);
+            }
+            return codes;
+        }
+    }
+
     public Set<ArrayList<Integer>> getImpossibleAlpha() {
+        return getImpossibleAlpha(null);
+    }
+
+    public Set<ArrayList<Integer>> getImpossibleAlpha(ForkJoinPool pool) {
         // returns a set of all alpha vectors that do not have an alpha cut under
         // current cut definition, implemented by computing all alpha vectors from a
         // line arrangement (of current cut def) and generating all alpha vectors and
@@ -332,31 +1145,14 @@ public class PointSetFamily implements List<PointSet> {
         // vectors containing 0 that are listed as impossible (which is actually true)
         // but these can be viewed as having alpha cut if the vector replacing 0 with 1
         // has cut.
+        // if pool is not null the alpha vectors are collected in parallel (see
+        // getAllAlphaCodes(pool))
         Set<ArrayList<Integer>> imposs = new HashSet<ArrayList<Integer>>();
-        Set<ArrayList<Integer>> allAlpha = getAllAlpha();
-
-        ArrayList<Integer> currAlpha = new ArrayList<Integer>();
-        for (int i = 0; i < pointSets.size(); i++) {
-            currAlpha.add(0);
+        BitSet codes = getAllAlphaCodes(pool);
+        int box = (int) alphaBoxSize();
+        for (int code = codes.nextClearBit(0); code < box; code = codes.nextClearBit(code + 1)) {
+            imposs.add(alphaOf(code));
         }
-
-        do {
-            if (!allAlpha.contains(currAlpha)) {
-                imposs.add(currAlpha);
-            }
-            // generate next alpha
-            ArrayList<Integer> newAlpha = new ArrayList<Integer>(currAlpha);
-            for (int i = 0; i < newAlpha.size(); i++) {
-                // check if ith entry can be increased, if yes, do so otherwise set to 1
-                if (newAlpha.get(i) < pointSets.get(i).size()) {
-                    newAlpha.set(i, newAlpha.get(i) + 1);
-                    break;
-                } else {
-                    newAlpha.set(i, 0);
-                }
-            }
-            currAlpha = newAlpha;
-        } while (Utils.sum(currAlpha) != 0);
         return imposs;
     }
 
@@ -366,53 +1162,84 @@ public class PointSetFamily implements List<PointSet> {
         // a line arrangement matches the alpha if getAlpha returns the right alpha
         // or if for all zeros in alpha the corresponding point set only has points on
         // the line arrangement
-        ArrayList<Integer> lineAlphaNeg = getAlpha(true, lines);
-        ArrayList<Integer> lineAlphaPos = getAlpha(false, lines);
-        // check if normal match
-        if (alpha.equals(lineAlphaNeg) || alpha.equals(lineAlphaPos)) {
-            return true;
+        ground();
+        return matches(lines, alpha, null);
+    }
+
+    private boolean matches(ArrayList<Line> lines, ArrayList<Integer> alpha, int[] counts) {
+        // matchesAlpha without updating the packed points, counts is reused if possible
+        if (alpha.size() != pointSets.size()) {
+            return false;
         }
-        // check if matches replacing zeros in alpha with number of points on
-        // arrangement
-        ArrayList<Integer> newAlpha = new ArrayList<Integer>(alpha);
-        for (int i = 0; i < newAlpha.size(); i++) {
-            if (newAlpha.get(i) != 0) {
-                continue;
+        counts = classifyPoints(lines, counts);
+        for (boolean neg : new boolean[] { true, false }) {
+            int side = countNegative(neg, lines) ? ABOVE : BELOW;
+            boolean matches = true;
+            for (int c = 0; c < alpha.size() && matches; c++) {
+                int lineAlpha = counts[3 * c + side] + counts[3 * c + ON];
+                // zeros in alpha may be replaced by the number of points on the arrangement
+                int target = alpha.get(c) == 0 ? counts[3 * c + ON] : alpha.get(c);
+                matches = lineAlpha == target;
+            }
+            if (matches) {
+                return true;
             }
-            newAlpha.set(i, pointSets.get(i).countPointsOn(lines));
-        }
-        if (newAlpha.equals(lineAlphaNeg) || newAlpha.equals(lineAlphaPos)) {
-            return true;
         }
         return false;
     }
 
     public void save(String filename) {
+        // files with the extension PointSetFamilyFormat.EXTENSION are written in the
+        // binary format, others as text (one line per point)
         if (this.size() == 0 || this.pointSets.get(0).size() == 0) {
             return;
         }
-        PApplet sketch = this.pointSets.get(0).get(0).getSketch();
-        PrintWriter writer = sketch.createWriter(filename);
-        for (PointSet pntSet : pointSets) {
-            writer.println("" + pntSet.size());
-            for (Point pnt : pntSet) {
-                writer.println("" + pnt.x + "," + pnt.y);
+        File file = new File(filename);
+        if (file.getParentFile() != null) {
+            file.getParentFile().mkdirs();
+        }
+        try {
+            if (filename.endsWith(PointSetFamilyFormat.EXTENSION)) {
+                PointSetFamilyFormat.save(this, file.toPath());
+            } else {
+                PrintWriter writer = new PrintWriter(new FileWriter(file));
+                for (PointSet pntSet : pointSets) {
+                    writer.println("" + pntSet.size());
+                    for (Point pnt : pntSet) {
+                        writer.println("" + pnt.x + "," + pnt.y);
+                    }
+                }
+                writer.close();
             }
+            System.out.println("PointSet saved under " + filename);
+        } catch (IOException e) {
+            e.printStackTrace();
         }
-        PApplet.println("PointSet saved under " + filename);
-        writer.close();
     }
 
-    public void load(PApplet sketch, String filename) {
-        BufferedReader reader = sketch.createReader(filename);
-        String line = null;
+    public void load(Canvas canvas, String filename) {
+        // adds the point sets of a file written by save
         try {
+            if (filename.endsWith(PointSetFamilyFormat.EXTENSION)) {
+                pointSets.addAll(PointSetFamilyFormat.load(canvas, new File(filename).toPath()));
+            } else {
+                readText(canvas, filename);
+            }
+        } catch (IOException | IllegalArgumentException e) {
+            e.printStackTrace();
+        }
+    }
+
+    void readText(Canvas canvas, String filename) throws IOException {
+        // adds the point sets of a text file, the sets read before an error are kept
+        String line = null;
+        try (BufferedReader reader = new BufferedReader(new FileReader(filename))) {
             while ((line = reader.readLine()) != null) {
                 if (line.contains(",")) {
                     throw new IOException("Invalid format");
                 }
-                PointSet nextSet = new PointSet();
-                int n = PApplet.parseInt(line);
+                PointSet nextSet = new PointSet(canvas);
+                int n = Integer.parseInt(line.trim());
                 for (int i = 0; i < n; i++) {
                     line = reader.readLine();
                     if (line == null || !line.contains(",")) {
@@ -422,16 +1249,15 @@ public class PointSetFamily implements List<PointSet> {
                     if (splitted.length != 2) {
                         throw new IOException("Invalid format");
                     }
-                    float x = PApplet.parseFloat(splitted[0]);
-                    float y = PApplet.parseFloat(splitted[1]);
+                    float x = Float.parseFloat(splitted[0].trim());
+                    float y = Float.parseFloat(splitted[1].trim());
 
-                    nextSet.add(new Point(sketch, x, y));
+                    nextSet.add(new Point(x, y));
                 }
                 pointSets.add(nextSet);
             }
-            reader.close();
-        } catch (IOException e) {
-            e.printStackTrace();
+        } catch (NumberFormatException e) {
+            throw new IOException("Invalid format", e);
         }
     }
 
@@ -0,0 +1,201 @@
+package com.separability.geometry;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.ShortBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Binary format of point set families, files with the extension '.fam' (see
+ * PointSetFamily.save and load, which use it for such files).
+ * A file starts with a header: magic number, format version, coordinate
+ * encoding, number of colours and the size of every colour. Then the
+ * coordinates follow colour by colour, packed as all x coordinates and then
+ * all y coordinates of the colour, i.e. the layout of the packed arrays of
+ * PointSet. All values are little endian, like the order type database.
+ * Coordinates are stored as unsigned 16 bit integers if all of them are whole
+ * numbers in [0, 65535] (e.g. points placed with the mouse), otherwise as 32
+ * bit floats. Both are exact, a family is read back with the same coordinates.
+ * Reading and writing are bulk operations on a ByteBuffer and need no sketch,
+ * main converts the text files of PointSetFamily.save to this format.
+ */
+public final class PointSetFamilyFormat {
+
+    public static final String EXTENSION = ".fam";
+
+    private static final int MAGIC = 0x46504553; // "SEPF" little endian
+    private static final int VERSION = 1;
+    static final int FLOAT32 = 0;
+    static final int UINT16 = 1;
+
+    private PointSetFamilyFormat() {
+    }
+
+    static int encoding(PointSetFamily family) {
+        // UINT16 if every coordinate fits exactly, FLOAT32 otherwise
+        for (PointSet pntSet : family) {
+            for (float[] coordinates : new float[][] { pntSet.packedX(), pntSet.packedY() }) {
+                for (float value : coordinates) {
+                    if (!(value >= 0 && value <= 0xffff && value == (int) value)) {
+                        return FLOAT32;
+                    }
+                }
+            }
+        }
+        return UINT16;
+    }
+
+    public static ByteBuffer write(PointSetFamily family) {
+        // returns the encoded family, positioned at its start
+        int encoding = encoding(family);
+        int points = 0;
+        for (PointSet pntSet : family) {
+            points += pntSet.size();
+        }
+        int header = 4 * (4 + family.size());
+        int bytes = 2 * points * (encoding == UINT16 ? 2 : 4);
+        ByteBuffer buffer = ByteBuffer.allocate(header + bytes).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(MAGIC);
+        buffer.putInt(VERSION);
+        buffer.putInt(encoding);
+        buffer.putInt(family.size());
+        for (PointSet pntSet : family) {
+            buffer.putInt(pntSet.size());
+        }
+        // the coordinates are written through a view of the rest of the buffer
+        if (encoding == FLOAT32) {
+            FloatBuffer view = buffer.asFloatBuffer();
+            for (PointSet pntSet : family) {
+                view.put(pntSet.packedX());
+                view.put(pntSet.packedY());
+            }
+        } else {
+            ShortBuffer view = buffer.asShortBuffer();
+            for (PointSet pntSet : family) {
+                for (float[] coordinates : new float[][] { pntSet.packedX(), pntSet.packedY() }) {
+                    short[] values = new short[coordinates.length];
+                    for (int i = 0; i < values.length; i++) {
+                        values[i] = (short) (int) coordinates[i];
+                    }
+                    view.put(values);
+                }
+            }
+        }
+        buffer.clear();
+        return buffer;
+    }
+
+    public static PointSetFamily read(Canvas canvas, ByteBuffer buffer) {
+        // decodes a family from the position of buffer (which is advanced past it),
+        // the point sets are stored compact
+        ByteBuffer in = buffer.slice().order(ByteOrder.LITTLE_ENDIAN);
+        try {
+            if (in.getInt() != MAGIC) {
+                throw new IllegalArgumentException("no point set family");
+            }
+            int version = in.getInt();
+            if (version != VERSION) {
+                throw new IllegalArgumentException("unsupported point set family version " + version);
+            }
+            int encoding = in.getInt();
+            if (encoding != FLOAT32 && encoding != UINT16) {
+                throw new IllegalArgumentException("unknown coordinate encoding " + encoding);
+            }
+            // the counts are checked against the remaining bytes before anything is
+            // allocated, a corrupt header is a format error
+            int colours = in.getInt();
+            if (colours < 0 || colours > in.remaining() / 4) {
+                throw new IllegalArgumentException("bad number of colours " + colours);
+            }
+            int[] sizes = new int[colours];
+            long points = 0;
+            for (int c = 0; c < sizes.length; c++) {
+                sizes[c] = in.getInt();
+                if (sizes[c] < 0) {
+                    throw new IllegalArgumentException("negative size of colour " + c);
+                }
+                points += sizes[c];
+            }
+            if (points * 2 * (encoding == FLOAT32 ? 4 : 2) > in.remaining()) {
+                throw new IllegalArgumentException("point set family is truncated");
+            }
+            PointSetFamily family = new PointSetFamily();
+            if (encoding == FLOAT32) {
+                FloatBuffer view = in.asFloatBuffer();
+                for (int size : sizes) {
+                    float[] xs = new float[size];
+                    float[] ys = new float[size];
+                    view.get(xs);
+                    view.get(ys);
+                    family.add(new PointSet(canvas, xs, ys));
+                }
+                in.position(in.position() + 4 * view.position());
+            } else {
+                ShortBuffer view = in.asShortBuffer();
+                for (int size : sizes) {
+                    short[] values = new short[2 * size];
+                    view.get(values);
+                    float[] xs = new float[size];
+                    float[] ys = new float[size];
+                    for (int i = 0; i < size; i++) {
+                        xs[i] = values[i] & 0xffff;
+                        ys[i] = values[size + i] & 0xffff;
+                    }
+                    family.add(new PointSet(canvas, xs, ys));
+                }
+                in.position(in.position() + 2 * view.position());
+            }
+            buffer.position(buffer.position() + in.position());
+            return family;
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("point set family is truncated", e);
+        }
+    }
+
+    public static void save(PointSetFamily family, Path file) throws IOException {
+        // families are small, they are encoded in memory and written at once
+        Files.write(file, write(family).array());
+    }
+
+    public static PointSetFamily load(Canvas canvas, Path file) throws IOException {
+        return read(canvas, ByteBuffer.wrap(Files.readAllBytes(file)));
+    }
+
+    public static Path convert(Path textFile) throws IOException {
+        // writes the family of a text file (see PointSetFamily.save) next to it in
+        // this format, returns the new file
+        PointSetFamily family = new PointSetFamily();
+        family.readText(null, textFile.toString());
+        String name = textFile.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        Path binary = textFile.resolveSibling((dot > 0 ? name.substring(0, dot) : name) + EXTENSION);
+        save(family, binary);
+        return binary;
+    }
+
+    public static void main(String[] args) throws IOException {
+        // converts the given text files, and the .txt files of given directories
+        if (args.length < 1) {
+            System.out.println("usage: PointSetFamilyFormat file.txt|directory ...");
+            return;
+        }
+        int converted = 0;
+        for (String arg : args) {
+            File[] files = new File(arg).isDirectory()
+                    ? new File(arg).listFiles((dir, name) -> name.endsWith(".txt"))
+                    : new File[] { new File(arg) };
+            for (File file : files) {
+                Path binary = convert(file.toPath());
+                System.out.println(file + " -> " + binary + " (" + Files.size(file.toPath()) + " -> "
+                        + Files.size(binary) + " bytes)");
+                converted += 1;
+            }
+        }
+        System.out.println(converted + " families converted");
+    }
+}
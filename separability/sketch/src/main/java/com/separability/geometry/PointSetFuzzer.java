@@ -1,28 +1,37 @@
 package com.separability.geometry;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.Random;
 
-import processing.core.PApplet;
-import processing.core.PVector;
-
 public class PointSetFuzzer implements PointSetSupplier {
 
     private LinkedList<PointSet> ready;
     private LinkedList<PointSet> toFuzz;
     private int batchSize = 100;
+    private Canvas canvas; // of the initial set, for restored sets
 
     interface Operation {
         void perform(PointSet pntSet);
     }
 
-    private Random rnd = new Random();
+    // all random choices, its state is part of a checkpoint (see writeState)
+    private CheckpointRandom rnd;
+
+    private void moveRandom(Point pnt) {
+        // moves pnt in a random direction by a random distance between 10 and 60
+        double angle = rnd.nextDouble() * 2 * Math.PI;
+        float len = 10 + rnd.nextFloat() * 50;
+        pnt.add(len * (float) Math.cos(angle), len * (float) Math.sin(angle));
+    }
 
     private Operation moveRandomOP = (pntSet) -> {
         int index = rnd.nextInt(pntSet.size());
         Point pnt = pntSet.get(index);
-        PVector dir = PVector.random2D().mult(10 + rnd.nextFloat() * 50);
-        pnt.add(dir);
+        moveRandom(pnt);
     };
 
     private Operation deleteRandomOP = (pntSet) -> {
@@ -37,14 +46,14 @@ public class PointSetFuzzer implements PointSetSupplier {
         int index = rnd.nextInt(pntSet.size());
         Point dupl = pntSet.get(index);
         Point ndu = new Point(dupl);
-        ndu.add(PVector.random2D().mult(10 + rnd.nextFloat() * 50));
+        moveRandom(ndu);
         pntSet.add(ndu);
     };
 
     private Operation addRandomOP = (pntSet) -> {
-        if (pntSet.size() > 0) {
-            PApplet sketch = pntSet.get(0).getSketch();
-            Point pnt = new Point(sketch, rnd.nextFloat() * sketch.width, rnd.nextFloat() * sketch.height);
+        Canvas canvas = pntSet.getCanvas();
+        if (pntSet.size() > 0 && canvas != null) {
+            Point pnt = new Point(rnd.nextFloat() * canvas.width, rnd.nextFloat() * canvas.height);
             pntSet.add(pnt);
         }
     };
@@ -65,9 +74,59 @@ public class PointSetFuzzer implements PointSetSupplier {
     };
 
     public PointSetFuzzer(PointSet initialSet) {
+        this(initialSet, new Random().nextLong());
+    }
+
+    public PointSetFuzzer(PointSet initialSet, long seed) {
+        // a fuzzer with a fixed seed produces the same point sets every time
         this.ready = new LinkedList<PointSet>();
         this.ready.add(initialSet);
         this.toFuzz = new LinkedList<PointSet>();
+        this.canvas = initialSet.getCanvas();
+        this.rnd = new CheckpointRandom(seed);
+    }
+
+    public void writeState(DataOutput out) throws IOException {
+        // writes everything the next point sets depend on: the queues, the batch size
+        // and the state of the random numbers
+        out.writeInt(batchSize);
+        out.writeLong(rnd.getState());
+        writeSets(out, ready);
+        writeSets(out, toFuzz);
+    }
+
+    public void readState(DataInput in) throws IOException {
+        // continues where the fuzzer that wrote the state stopped
+        batchSize = in.readInt();
+        rnd.setState(in.readLong());
+        ready = readSets(in);
+        toFuzz = readSets(in);
+    }
+
+    private void writeSets(DataOutput out, LinkedList<PointSet> sets) throws IOException {
+        out.writeInt(sets.size());
+        for (PointSet pntSet : sets) {
+            out.writeInt(pntSet.size());
+            for (int i = 0; i < pntSet.size(); i++) {
+                out.writeFloat(pntSet.getX(i));
+                out.writeFloat(pntSet.getY(i));
+            }
+        }
+    }
+
+    private LinkedList<PointSet> readSets(DataInput in) throws IOException {
+        LinkedList<PointSet> sets = new LinkedList<PointSet>();
+        int count = in.readInt();
+        for (int s = 0; s < count; s++) {
+            int size = in.readInt();
+            ArrayList<Point> pnts = new ArrayList<Point>(size);
+            for (int i = 0; i < size; i++) {
+                float x = in.readFloat();
+                pnts.add(new Point(x, in.readFloat()));
+            }
+            sets.add(new PointSet(canvas, pnts));
+        }
+        return sets;
     }
 
     private void fuzzAll() {
@@ -92,16 +151,19 @@ public class PointSetFuzzer implements PointSetSupplier {
 
         PointSet copied = pntSet.copy();
         // pick random operation to perform
-        Random rnd = new Random();
         int opIndex = rnd.nextInt(operations.length);
         operations[opIndex].perform(copied);
         // restrict every point to be inside canvas
+        Canvas canvas = copied.getCanvas();
         for (Point pnt : copied) {
-            if (pnt.x > pnt.getSketch().width) {
-                pnt.x = pnt.getSketch().width;
+            if (canvas == null) {
+                break;
+            }
+            if (pnt.x > canvas.width) {
+                pnt.x = canvas.width;
             }
-            if (pnt.y > pnt.getSketch().height) {
-                pnt.y = pnt.getSketch().height;
+            if (pnt.y > canvas.height) {
+                pnt.y = canvas.height;
             }
             if (pnt.x < 0) {
                 pnt.x = 0;
@@ -110,6 +172,8 @@ public class PointSetFuzzer implements PointSetSupplier {
                 pnt.y = 0;
             }
         }
+        // the operations move point objects directly
+        copied.changed();
         ready.add(copied);
     }
 
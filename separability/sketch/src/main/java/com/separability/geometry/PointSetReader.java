@@ -1,23 +1,55 @@
 package com.separability.geometry;
 
+import java.io.File;
 import java.io.IOException;
-import java.io.InputStream;
-import java.util.ArrayList;
-
-import processing.core.PApplet;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.ShortBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 
+/**
+ * Reads the order type database, files 'otypesdd.bxx' holding the order types
+ * of dd points as records of dd pairs of unsigned grid coordinates with xx
+ * bits each: 8 (one byte) or 16 (two bytes, little endian, used for dd >= 9).
+ * The file is memory mapped, so record i is decoded in O(1) (see get), ranges
+ * of records can be handed out as independent readers (see slice) and the raw
+ * coordinate bytes of a record are available without copying (see raw).
+ * nextPointSet() reads the records in order from a position that can be set
+ * (see seek), e.g. to restart a census at an arbitrary record.
+ * Decoding only reads the mapping, so get, raw and slice can be used by
+ * several threads, nextPointSet should be used by one thread per reader.
+ */
 public class PointSetReader implements PointSetSupplier {
-    private InputStream file;
-    private int totalPointSets;
 
-    private int n;
-    private PApplet sketch;
+    // a single mapping is limited to 2 GB, larger files are mapped in segments
+    // of whole records
+    private static final long SEGMENT_BYTES = 1L << 30;
+
+    private final ByteBuffer[] segments;
+    // 16 bit views of the segments (null for 8 bit coordinates)
+    private final ShortBuffer[] shortSegments;
+    private final int recordsPerSegment;
+    private final int n;
+    private final int bits; // per coordinate
+    private final int recordBytes;
+    private final Canvas canvas;
+    // maps the grid to the canvas, shared by all point sets (see PointSet.floats)
+    private final float[] gridMap;
+    // records [from, to) of the file belong to this reader (slices share segments)
+    private final long from, to;
+    private long position = 0;
+    private int totalPointSets = 0;
 
-    public PointSetReader(PApplet sketch, String filename) throws IllegalArgumentException {
-        if (!filename.startsWith("otypes")) {
+    public PointSetReader(Canvas canvas, String filename) throws IllegalArgumentException {
+        // filename may contain a directory, the name itself must have the format
+        // 'otypesdd.bxx'
+        String name = new File(filename).getName();
+        if (!name.startsWith("otypes")) {
             throw new IllegalArgumentException("filename must start with 'otypes'");
         }
-        String[] splitted = PApplet.split(filename, ".");
+        String[] splitted = name.split("\\.");
         if (splitted.length != 2) {
             throw new IllegalArgumentException("filename must contain '.'");
         }
@@ -25,46 +57,157 @@ public class PointSetReader implements PointSetSupplier {
         if (splitted[0].length() != 8) {
             throw new IllegalArgumentException("filename must have format 'otypesdd.bxx'");
         }
-        this.sketch = sketch;
+        this.canvas = canvas;
 
         n = Integer.valueOf(splitted[0].substring(6));
-        file = sketch.createInput(filename);
-        totalPointSets = 0;
+        if (splitted[1].equals("b08")) {
+            bits = 8;
+        } else if (splitted[1].equals("b16")) {
+            bits = 16;
+        } else {
+            throw new IllegalArgumentException("file extension must be 'b08' or 'b16'");
+        }
+        recordBytes = 2 * n * (bits / 8);
+        gridMap = new float[] { (1 << bits) - 1, (float) 0.1 * canvas.width, (float) 0.9 * canvas.width,
+                (float) 0.1 * canvas.height, (float) 0.9 * canvas.height };
+        recordsPerSegment = (int) (SEGMENT_BYTES / recordBytes);
+        try (FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size % recordBytes != 0) {
+                // a partial record would be decoded from whatever follows it
+                throw new IllegalArgumentException(filename + " is truncated, " + size
+                        + " bytes are no multiple of the record size " + recordBytes);
+            }
+            long records = size / recordBytes;
+            segments = new ByteBuffer[(int) ((records + recordsPerSegment - 1) / recordsPerSegment)];
+            for (int s = 0; s < segments.length; s++) {
+                long first = (long) s * recordsPerSegment;
+                long count = Math.min(recordsPerSegment, records - first);
+                // the mapping stays valid after the channel is closed
+                segments[s] = channel.map(FileChannel.MapMode.READ_ONLY, first * recordBytes, count * recordBytes);
+            }
+            shortSegments = bits == 16 ? new ShortBuffer[segments.length] : null;
+            for (int s = 0; bits == 16 && s < segments.length; s++) {
+                shortSegments[s] = segments[s].duplicate().order(ByteOrder.LITTLE_ENDIAN).asShortBuffer();
+            }
+            from = 0;
+            to = records;
+        } catch (IOException e) {
+            throw new IllegalArgumentException("cannot open " + filename, e);
+        }
+    }
+
+    private PointSetReader(PointSetReader base, long from, long to) {
+        // the records [from, to) of the file of base
+        this.segments = base.segments;
+        this.shortSegments = base.shortSegments;
+        this.bits = base.bits;
+        this.recordsPerSegment = base.recordsPerSegment;
+        this.n = base.n;
+        this.recordBytes = base.recordBytes;
+        this.canvas = base.canvas;
+        this.gridMap = base.gridMap;
+        this.from = from;
+        this.to = to;
     }
 
     public int getTotalPointSets() {
+        // number of point sets returned by nextPointSet
         return totalPointSets;
     }
 
-    public PointSet nextPointSet() {
-        byte[] pointArray = new byte[2 * n];
-        ArrayList<Point> pointSet = new ArrayList<Point>();
-        try {
-            int rd = file.read(pointArray);
-            if (rd == -1) {
-                return null;
-            }
-        } catch (IOException e) {
-            return null;
+    public int getPointCount() {
+        // number of points of every order type
+        return n;
+    }
+
+    public int getCoordinateBits() {
+        // 8 or 16, given by the file extension
+        return bits;
+    }
+
+    public long size() {
+        // number of records of this reader
+        return to - from;
+    }
+
+    public long position() {
+        // index of the record nextPointSet returns next
+        return position;
+    }
+
+    public void seek(long position) {
+        // continues nextPointSet at the given record
+        if (position < 0 || position > size()) {
+            throw new IndexOutOfBoundsException("position " + position + " of " + size() + " records");
         }
-        for (int i = 0; i < pointArray.length; i += 2) {
-            int bx = (int) pointArray[i];
-            int by = (int) pointArray[i + 1];
-
-            // because java is such a nice language not to provide unsigned types
-            // we have to do such a hacky thing to convert to unsigned values
-            if (bx < 0) {
-                bx = 128 + Math.abs(-128 - bx);
+        this.position = position;
+    }
+
+    public PointSetReader slice(long fromIndex, long toIndex) {
+        // returns a reader of the records [fromIndex, toIndex) of this reader, it
+        // shares the mapping and starts at position 0
+        if (fromIndex < 0 || fromIndex > toIndex || toIndex > size()) {
+            throw new IndexOutOfBoundsException("range [" + fromIndex + ", " + toIndex + ") of " + size() + " records");
+        }
+        return new PointSetReader(this, from + fromIndex, from + toIndex);
+    }
+
+    public ByteBuffer raw(long index) {
+        // returns the coordinate bytes of record index as a read only view of the
+        // mapping (x0, y0, x1, y1, ..., unsigned, 16 bit coordinates little endian),
+        // nothing is copied
+        checkIndex(index);
+        long record = from + index;
+        ByteBuffer segment = segments[(int) (record / recordsPerSegment)];
+        int offset = (int) (record % recordsPerSegment) * recordBytes;
+        return segment.slice(offset, recordBytes).asReadOnlyBuffer();
+    }
+
+    public PointSet get(long index) {
+        // decodes record index, the point set is stored compact as its grid
+        // coordinates only (the float coordinates are derived when needed)
+        checkIndex(index);
+        long record = from + index;
+        int segment = (int) (record / recordsPerSegment);
+        int offset = (int) (record % recordsPerSegment) * recordBytes;
+        // one absolute bulk read of the record (the shared mapping is not changed),
+        // 16 bit coordinates are kept as they are (unsigned), bytes are masked to
+        // unsigned values
+        short[] gx = new short[n];
+        short[] gy = new short[n];
+        if (bits == 8) {
+            byte[] bytes = new byte[2 * n];
+            segments[segment].get(offset, bytes);
+            for (int i = 0; i < n; i++) {
+                gx[i] = (short) (bytes[2 * i] & 0xff);
+                gy[i] = (short) (bytes[2 * i + 1] & 0xff);
             }
-            if (by < 0) {
-                by = 128 + Math.abs(-128 - by);
+        } else {
+            short[] shorts = new short[2 * n];
+            shortSegments[segment].get(offset / 2, shorts);
+            for (int i = 0; i < n; i++) {
+                gx[i] = shorts[2 * i];
+                gy[i] = shorts[2 * i + 1];
             }
-            float x = PApplet.map(bx, 0, 255, (float) 0.1 * sketch.width, (float) 0.9 * sketch.width);
-            float y = PApplet.map(by, 0, 255, (float) 0.1 * sketch.height, (float) 0.9 * sketch.height);
-            pointSet.add(new Point(sketch, x, y));
         }
+        return new PointSet(canvas, n, null, null, gx, gy, gridMap);
+    }
+
+    public PointSet nextPointSet() {
+        // returns the record at the current position and advances, null at the end
+        if (position >= size()) {
+            return null;
+        }
+        PointSet pntSet = get(position);
+        position += 1;
         totalPointSets += 1;
+        return pntSet;
+    }
 
-        return new PointSet(pointSet);
+    private void checkIndex(long index) {
+        if (index < 0 || index >= size()) {
+            throw new IndexOutOfBoundsException("record " + index + " of " + size() + " records");
+        }
     }
 }
@@ -0,0 +1,84 @@
+package com.separability.geometry;
+
+import java.util.function.LongPredicate;
+import java.util.stream.LongStream;
+
+/**
+ * Enumeration of the subsets of a ground set of n points, where a subset is
+ * given as a long mask (bit i is point i, see PointSet.subset and
+ * PointSet.mask).
+ * The visitors return true to continue and false to stop the enumeration
+ * early, nothing is allocated per subset.
+ */
+public final class Subsets {
+
+    // largest ground set that can be enumerated (2^n must fit in a long)
+    public static final int MAX_POINTS = 62;
+
+    private Subsets() {
+    }
+
+    public static boolean forEach(int n, LongPredicate visitor) {
+        // visits all subsets of n points in increasing order of their masks
+        // returns false if the visitor stopped the enumeration
+        checkSize(n);
+        long end = 1L << n;
+        for (long mask = 0; mask < end; mask++) {
+            if (!visitor.test(mask)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public static boolean forEachGray(int n, LongPredicate visitor) {
+        // visits all subsets of n points in Gray code order, i.e. two consecutive
+        // subsets differ in exactly one point (for the i-th subset, i > 0, this is
+        // point Long.numberOfTrailingZeros(i)), starting with the empty set
+        // returns false if the visitor stopped the enumeration
+        checkSize(n);
+        long end = 1L << n;
+        for (long i = 0; i < end; i++) {
+            if (!visitor.test(i ^ (i >>> 1))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public static boolean forEachOfSize(int n, int k, LongPredicate visitor) {
+        // visits all subsets of exactly k of n points in increasing order of their
+        // masks (Gosper's hack)
+        // returns false if the visitor stopped the enumeration
+        checkSize(n);
+        if (k < 0 || k > n) {
+            return true;
+        }
+        if (k == 0) {
+            return visitor.test(0);
+        }
+        long end = 1L << n;
+        long mask = (1L << k) - 1;
+        while (mask < end) {
+            if (!visitor.test(mask)) {
+                return false;
+            }
+            long lowest = mask & -mask;
+            long ripple = mask + lowest;
+            mask = (((ripple ^ mask) >>> 2) / lowest) | ripple;
+        }
+        return true;
+    }
+
+    public static LongStream stream(int n) {
+        // all subsets of n points as a (lazy) stream of masks, in increasing order
+        checkSize(n);
+        return LongStream.range(0, 1L << n);
+    }
+
+    private static void checkSize(int n) {
+        if (n < 0 || n > MAX_POINTS) {
+            throw new IllegalArgumentException("cannot enumerate the subsets of " + n + " points");
+        }
+    }
+}
@@ -0,0 +1,342 @@
+package com.separability.geometry;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+/**
+ * Decides whether a single alpha vector has an alpha cut made of two cut
+ * lines (see PointSetFamily.CUT_LINES and CUT_LINES_TWO_COL) without
+ * classifying every arrangement.
+ * For every candidate line and colour the points strictly below and on the
+ * line are stored as long masks (so every colour has at most 64 points), the
+ * counts of an arrangement are then a few word operations.
+ * The points below exactly one line of a pair are the symmetric difference
+ * of their below masks, so its size is bounded by the distances of both masks
+ * to any fixed pivot mask (triangle inequality of the Hamming distance). The
+ * second lines are keyed by these distances, per colour, to the empty mask
+ * (the below counts) and to the below masks of a few pivot lines. A first line
+ * and the target of a colour then require every key of the second line to lie
+ * in an interval (one per side of the arrangement, see interval). The lines
+ * with equal keys are grouped, the groups are stored in a k-d tree over their
+ * keys and a lookup is a range search for the required boxes of keys. Subtrees
+ * outside both boxes are never visited, so the work per first line depends on
+ * the matching groups, not on all of them. Every pair is checked once (second
+ * line not before the first). The bound on the below counts over all lines
+ * prunes whole first lines.
+ * Used by PointSetFamily.hasAlpha for large arrangement spaces.
+ */
+final class TwoLineSolver {
+
+    private final ArrayList<Line> lines;
+    private final int colours;
+    private final int[] sizes; // points per colour
+    // masks of the points strictly below and on line l for colour c at
+    // [l * colours + c]
+    private final long[] below;
+    private final long[] on;
+    private final int[] maxOn; // largest number of points on a line, per colour
+    // smallest and largest number of points below a line, per colour
+    private final int[] minBelow, maxBelow;
+    // below masks of the pivots for colour c at [p * colours + c], pivot 0 is empty
+    private final long[] pivots;
+    private final int keys; // pivots * colours, key k is for colour k % colours
+    // second lines grouped by their keys (one int[] per group, lines ascending), the
+    // groups are the leaves of a k-d tree over their keys
+    private final int[][] groupKeys;
+    private final int[][] groupLines;
+    // nodes of the k-d tree in preorder: the groups [from, to) of a node, its right
+    // child (-1 for leaves, the left child is the next node) and the smallest and
+    // largest keys of its groups at [node * keys + k]
+    private final int[] nodeFrom, nodeTo, nodeRight;
+    private final int[] nodeMin, nodeMax;
+    // required intervals of the keys of the second line during a lookup, for the
+    // lower and the upper side
+    private final int[] lowerFrom, lowerTo, upperFrom, upperTo;
+
+    private static final int PIVOTS = 12;
+    private static final int LEAF = 16; // groups per leaf of the k-d tree
+
+    TwoLineSolver(ArrayList<Line> lines, int[] offsets, Chirotope chirotope, float[] xs, float[] ys) {
+        this.lines = lines;
+        this.colours = offsets.length - 1;
+        this.sizes = new int[colours];
+        for (int c = 0; c < colours; c++) {
+            sizes[c] = offsets[c + 1] - offsets[c];
+            if (sizes[c] > 64) {
+                throw new IllegalArgumentException("colour " + c + " has more than 64 points");
+            }
+        }
+        this.below = new long[lines.size() * colours];
+        this.on = new long[lines.size() * colours];
+        this.maxOn = new int[colours];
+        this.minBelow = new int[colours];
+        this.maxBelow = new int[colours];
+        Arrays.fill(minBelow, Integer.MAX_VALUE);
+        for (int l = 0; l < lines.size(); l++) {
+            Line lne = lines.get(l);
+            for (int c = 0; c < colours; c++) {
+                long belowMask = 0;
+                long onMask = 0;
+                for (int id = offsets[c]; id < offsets[c + 1]; id++) {
+                    int side = lne.side(chirotope, id, xs[id], ys[id]);
+                    if (side > 0) {
+                        belowMask |= 1L << (id - offsets[c]);
+                    } else if (side == 0) {
+                        onMask |= 1L << (id - offsets[c]);
+                    }
+                }
+                below[l * colours + c] = belowMask;
+                on[l * colours + c] = onMask;
+                maxOn[c] = Math.max(maxOn[c], Long.bitCount(onMask));
+                minBelow[c] = Math.min(minBelow[c], Long.bitCount(belowMask));
+                maxBelow[c] = Math.max(maxBelow[c], Long.bitCount(belowMask));
+            }
+        }
+        // the pivot lines are spread over the candidates
+        int pivotCount = Math.min(PIVOTS, lines.size() + 1);
+        this.pivots = new long[pivotCount * colours];
+        for (int p = 1; p < pivotCount; p++) {
+            int l = (int) ((long) (p - 1) * lines.size() / (pivotCount - 1));
+            System.arraycopy(below, l * colours, pivots, p * colours, colours);
+        }
+        this.keys = pivotCount * colours;
+        // the map keeps the lines of a group ascending
+        LinkedHashMap<List<Integer>, ArrayList<Integer>> groups = new LinkedHashMap<List<Integer>, ArrayList<Integer>>();
+        for (int l = 0; l < lines.size(); l++) {
+            ArrayList<Integer> key = new ArrayList<Integer>(keys);
+            for (int k = 0; k < keys; k++) {
+                key.add(distance(l, k));
+            }
+            groups.computeIfAbsent(key, k -> new ArrayList<Integer>()).add(l);
+        }
+        this.groupKeys = new int[groups.size()][];
+        this.groupLines = new int[groups.size()][];
+        int g = 0;
+        for (List<Integer> key : groups.keySet()) {
+            groupKeys[g] = key.stream().mapToInt(Integer::intValue).toArray();
+            groupLines[g] = groups.get(key).stream().mapToInt(Integer::intValue).toArray();
+            g += 1;
+        }
+        ArrayList<int[]> nodes = new ArrayList<int[]>();
+        build(0, groupKeys.length, nodes);
+        this.nodeFrom = new int[nodes.size()];
+        this.nodeTo = new int[nodes.size()];
+        this.nodeRight = new int[nodes.size()];
+        this.nodeMin = new int[nodes.size() * keys];
+        this.nodeMax = new int[nodes.size() * keys];
+        for (int node = 0; node < nodes.size(); node++) {
+            int[] nde = nodes.get(node);
+            nodeFrom[node] = nde[0];
+            nodeTo[node] = nde[1];
+            nodeRight[node] = nde[2];
+            Arrays.fill(nodeMin, node * keys, (node + 1) * keys, Integer.MAX_VALUE);
+            Arrays.fill(nodeMax, node * keys, (node + 1) * keys, Integer.MIN_VALUE);
+            for (int grp = nde[0]; grp < nde[1]; grp++) {
+                for (int k = 0; k < keys; k++) {
+                    nodeMin[node * keys + k] = Math.min(nodeMin[node * keys + k], groupKeys[grp][k]);
+                    nodeMax[node * keys + k] = Math.max(nodeMax[node * keys + k], groupKeys[grp][k]);
+                }
+            }
+        }
+        this.lowerFrom = new int[keys];
+        this.lowerTo = new int[keys];
+        this.upperFrom = new int[keys];
+        this.upperTo = new int[keys];
+    }
+
+    private void build(int from, int to, ArrayList<int[]> nodes) {
+        // adds the subtree of the groups [from, to) to nodes (in preorder, the left
+        // child follows its parent, {from, to, right child or -1}), the groups are
+        // split at the median of the key with the largest spread
+        int[] node = new int[] { from, to, -1 };
+        nodes.add(node);
+        if (to - from <= LEAF) {
+            return;
+        }
+        int split = 0;
+        int spread = -1;
+        for (int k = 0; k < keys; k++) {
+            int min = Integer.MAX_VALUE;
+            int max = Integer.MIN_VALUE;
+            for (int g = from; g < to; g++) {
+                min = Math.min(min, groupKeys[g][k]);
+                max = Math.max(max, groupKeys[g][k]);
+            }
+            if (max - min > spread) {
+                split = k;
+                spread = max - min;
+            }
+        }
+        Integer[] order = new Integer[to - from];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = from + i;
+        }
+        int k = split;
+        Arrays.sort(order, (a, b) -> Integer.compare(groupKeys[a][k], groupKeys[b][k]));
+        int[][] sortedKeys = new int[order.length][];
+        int[][] sortedLines = new int[order.length][];
+        for (int i = 0; i < order.length; i++) {
+            sortedKeys[i] = groupKeys[order[i]];
+            sortedLines[i] = groupLines[order[i]];
+        }
+        System.arraycopy(sortedKeys, 0, groupKeys, from, order.length);
+        System.arraycopy(sortedLines, 0, groupLines, from, order.length);
+        int mid = (from + to) >>> 1;
+        build(from, mid, nodes);
+        node[2] = nodes.size();
+        build(mid, to, nodes);
+    }
+
+    private int distance(int l, int k) {
+        // key k of line l: the Hamming distance of its below mask to the pivot
+        int c = k % colours;
+        return Long.bitCount(below[l * colours + c] ^ pivots[k]);
+    }
+
+    boolean solve(List<Integer> alpha, ArrayList<Line> witness, AlphaSearchStats stats) {
+        // returns true if some pair of lines is an alpha cut for alpha (with the rules
+        // of PointSetFamily.matchesAlpha), if witness is not null it is replaced by the
+        // pair, the explored and pruned nodes are added to stats
+        int[] target = new int[colours];
+        for (int c = 0; c < colours; c++) {
+            target[c] = alpha.get(c);
+        }
+        for (int first = 0; first < lines.size(); first++) {
+            stats.firstLines += 1;
+            if (!feasible(first, minBelow, maxBelow, target)) {
+                stats.firstLinesPruned += 1;
+                continue;
+            }
+            for (int k = 0; k < keys; k++) {
+                interval(first, k, target[k % colours]);
+            }
+            stats.groups += groupKeys.length;
+            stats.groupsPruned += groupKeys.length;
+            int second = lookup(first, 0, true, true, target, stats);
+            if (second >= 0) {
+                if (witness != null) {
+                    witness.clear();
+                    witness.add(lines.get(first));
+                    witness.add(lines.get(second));
+                }
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void interval(int first, int k, int target) {
+        // sets the intervals of key k a second line needs to reach the target with the
+        // first line, on the lower and on the upper side (see feasible, these are its
+        // bounds solved for b2, with the distances to the pivot instead of the below
+        // counts, the distances to its complement are n - b1 and n - b2)
+        int c = k % colours;
+        int n = sizes[c];
+        if (target == 0) {
+            // zeros may be replaced, no bound
+            lowerFrom[k] = upperFrom[k] = 0;
+            lowerTo[k] = upperTo[k] = n;
+            return;
+        }
+        int b1 = distance(first, k);
+        int onBound = Long.bitCount(on[first * colours + c]) + maxOn[c];
+        // lower: n - min(b1 + b2, 2n - b1 - b2) <= target <= n - |b1 - b2| + onBound
+        lowerFrom[k] = Math.max(b1 - (n - target + onBound), n - target - b1);
+        lowerTo[k] = Math.min(b1 + (n - target + onBound), n + target - b1);
+        // upper: |b1 - b2| <= target <= min(b1 + b2, 2n - b1 - b2) + onBound
+        upperFrom[k] = Math.max(b1 - target, target - onBound - b1);
+        upperTo[k] = Math.min(b1 + target, 2 * n - b1 - target + onBound);
+    }
+
+    private int lookup(int first, int node, boolean lower, boolean upper, int[] target, AlphaSearchStats stats) {
+        // checks the second lines of the groups of the node if its box of keys meets
+        // the required intervals of a side that is still possible
+        // returns the second line of an alpha cut, -1 if there is none
+        for (int k = 0, base = node * keys; k < keys && (lower || upper); k++) {
+            lower = lower && nodeMin[base + k] <= lowerTo[k] && lowerFrom[k] <= nodeMax[base + k];
+            upper = upper && nodeMin[base + k] <= upperTo[k] && upperFrom[k] <= nodeMax[base + k];
+        }
+        if (!lower && !upper) {
+            return -1;
+        }
+        if (nodeRight[node] >= 0) {
+            int second = lookup(first, node + 1, lower, upper, target, stats);
+            return second >= 0 ? second : lookup(first, nodeRight[node], lower, upper, target, stats);
+        }
+        for (int g = nodeFrom[node]; g < nodeTo[node]; g++) {
+            if (!inIntervals(g, lower, upper)) {
+                continue;
+            }
+            stats.groupsPruned -= 1;
+            // a pair is an alpha cut in either order, so only second >= first
+            int[] seconds = groupLines[g];
+            int i = Arrays.binarySearch(seconds, first);
+            for (i = i < 0 ? -i - 1 : i; i < seconds.length; i++) {
+                stats.pairs += 1;
+                if (matches(first, seconds[i], target)) {
+                    return seconds[i];
+                }
+            }
+        }
+        return -1;
+    }
+
+    private boolean inIntervals(int g, boolean lower, boolean upper) {
+        // returns true if the keys of group g are all in the intervals of a side that
+        // is still possible
+        for (int k = 0; k < keys && (lower || upper); k++) {
+            int value = groupKeys[g][k];
+            lower = lower && lowerFrom[k] <= value && value <= lowerTo[k];
+            upper = upper && upperFrom[k] <= value && value <= upperTo[k];
+        }
+        return lower || upper;
+    }
+
+    private boolean feasible(int first, int[] lo, int[] hi, int[] target) {
+        // returns false if no second line with below counts in [lo[c], hi[c]] can make
+        // an alpha cut with the first line: for b1 and b2 points below the lines, the
+        // points below exactly one line are between |b1 - b2| and
+        // min(b1 + b2, 2n - b1 - b2), the points on the lines can only add to a side
+        boolean lower = true;
+        boolean upper = true;
+        for (int c = 0; c < colours && (lower || upper); c++) {
+            if (target[c] == 0) {
+                continue; // zeros may be replaced, no bound
+            }
+            int n = sizes[c];
+            int b1 = Long.bitCount(below[first * colours + c]);
+            int onBound = Long.bitCount(on[first * colours + c]) + maxOn[c];
+            // |b1 - b2| is smallest for b2 closest to b1, min(b1 + b2, 2n - b1 - b2)
+            // largest for b2 closest to n - b1
+            int closest = Math.max(lo[c], Math.min(hi[c], b1));
+            int minOdd = Math.abs(b1 - closest);
+            int b2 = Math.max(lo[c], Math.min(hi[c], n - b1));
+            int maxOdd = Math.min(b1 + b2, 2 * n - b1 - b2);
+            lower = lower && n - maxOdd <= target[c] && target[c] <= n - minOdd + onBound;
+            upper = upper && minOdd <= target[c] && target[c] <= maxOdd + onBound;
+        }
+        return lower || upper;
+    }
+
+    private boolean matches(int first, int second, int[] target) {
+        // exact check of the pair, for the lower and the upper side
+        for (int side = 0; side < 2; side++) {
+            boolean matches = true;
+            for (int c = 0; c < colours && matches; c++) {
+                long all = sizes[c] == 64 ? -1L : (1L << sizes[c]) - 1;
+                long onMask = on[first * colours + c] | on[second * colours + c];
+                long odd = below[first * colours + c] ^ below[second * colours + c];
+                long strict = (side == 0 ? ~odd : odd) & ~onMask & all;
+                int onCount = Long.bitCount(onMask);
+                int count = Long.bitCount(strict) + onCount;
+                matches = count == (target[c] == 0 ? onCount : target[c]);
+            }
+            if (matches) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -3,6 +3,7 @@ package com.separability.gui;
 import java.util.ArrayList;
 
 import com.separability.Utils;
+import com.separability.geometry.Canvas;
 import com.separability.geometry.Line;
 
 import processing.core.PApplet;
@@ -53,7 +54,7 @@ public class BelowLineGUI extends PApplet {
         }
         if (state > 0) {
             // render the positive and negative side in a separate image using a shader
-            belowLineShader.set("lines", Utils.linesToShader(lines));
+            belowLineShader.set("lines", Renderer.linesToShader(this, lines));
             belowLineShader.set("size", 2 * lines.size());
             bg.beginDraw();
             bg.background(255);
@@ -86,13 +87,13 @@ public class BelowLineGUI extends PApplet {
         image(bg, 0, 0, width, height);
         if (lines != null) {
             for (Line lne : lines) {
-                lne.show();
+                Renderer.show(this, lne);
             }
         }
 
         if (fMousePos != null && mousePressed) {
-            Line lne = new Line(this, fMousePos.x, fMousePos.y, mouseX, mouseY);
-            lne.show();
+            Line lne = new Line(fMousePos.x, fMousePos.y, mouseX, mouseY);
+            Renderer.show(this, lne);
         }
         if (mode == 1) {
             incState();
@@ -107,7 +108,7 @@ public class BelowLineGUI extends PApplet {
 
     public void mouseReleased() {
         if (state > 0 && fMousePos != null) {
-            Line lne = new Line(this, fMousePos.x, fMousePos.y, (float) mouseX, (float) mouseY);
+            Line lne = new Line(fMousePos.x, fMousePos.y, (float) mouseX, (float) mouseY);
             if (!lne.isDegen()) {
                 lines.add(lne);
             }
@@ -144,4 +145,9 @@ public class BelowLineGUI extends PApplet {
     public void incState() {
         state += 1;
     }
+
+    public Canvas getCanvas() {
+        // the canvas (size) of this sketch for the geometry classes
+        return new Canvas(width, height);
+    }
 }
@@ -25,7 +25,7 @@ public class PointSetFamilyGUI extends BelowLineGUI {
     public void setup() {
         super.setup();
         points = new PointSetFamily();
-        points.add(new PointSet());
+        points.add(new PointSet(getCanvas()));
     }
 
     public void draw() {
@@ -40,7 +40,7 @@ public class PointSetFamilyGUI extends BelowLineGUI {
             for (Point pnt : pntSet) {
                 pnt.setColor(c);
                 pnt.setSize(pointR);
-                pnt.show();
+                Renderer.show(this, pnt);
             }
         }
     }
@@ -48,11 +48,11 @@ public class PointSetFamilyGUI extends BelowLineGUI {
     public void mouseReleased() {
         super.mouseReleased();
         if (state == 0) {
-            Point pnt = new Point(this, mouseX, mouseY);
+            Point pnt = new Point(mouseX, mouseY);
             if (points.size() == 0) {
-                points.add(new PointSet());
+                points.add(new PointSet(getCanvas()));
             }
-            points.get(points.size() - 1).add(pnt);
+            points.addPoint(points.size() - 1, pnt);
         }
     }
 
@@ -67,7 +67,7 @@ public class PointSetFamilyGUI extends BelowLineGUI {
             if (state == 0 && points.size() > 0) {
                 PointSet curr = points.get(points.size() - 1);
                 if (curr.size() > 0) {
-                    curr.remove(curr.size() - 1);
+                    points.removePoint(points.size() - 1, curr.size() - 1);
                 }
                 if (curr.size() == 0) {
                     points.remove(points.size() - 1);
@@ -75,7 +75,7 @@ public class PointSetFamilyGUI extends BelowLineGUI {
             }
         }
         if (key == 'n' && state == 0) {
-            points.add(new PointSet());
+            points.add(new PointSet(getCanvas()));
         }
         if (key == 'a') {
             println(points.getAlpha(true, lines), points.getAlpha(false, lines));
@@ -83,7 +83,7 @@ public class PointSetFamilyGUI extends BelowLineGUI {
         if (key == 's') {
             String currName = Utils.currName(this);
             if (points != null) {
-                points.save("points/pointSet_" + currName + ".txt");
+                points.save(sketchPath("points/pointSet_" + currName + ".txt"));
             }
         }
     }
@@ -31,7 +31,7 @@ public class PointSetGUI extends BelowLineGUI {
     }
 
     public void setup() {
-        points = new PointSet();
+        points = new PointSet(getCanvas());
         super.setup();
     }
 
@@ -43,14 +43,14 @@ public class PointSetGUI extends BelowLineGUI {
         for (Point pnt : points) {
             pnt.setColor(defaultColor);
             pnt.setSize(pointR);
-            pnt.show();
+            Renderer.show(this, pnt);
         }
     }
 
     public void mouseReleased() {
         super.mouseReleased();
         if (state == 0) {
-            Point pnt = new Point(this, mouseX, mouseY);
+            Point pnt = new Point(mouseX, mouseY);
             pnt.setSize(pointR);
             pnt.setColor(defaultColor);
             points.add(pnt);
@@ -0,0 +1,55 @@
+package com.separability.gui;
+
+import java.util.ArrayList;
+
+import com.separability.geometry.Line;
+import com.separability.geometry.Point;
+
+import processing.core.PApplet;
+import processing.core.PVector;
+
+/**
+ * Draws the (headless) geometry objects on a sketch.
+ * The geometry classes only hold coordinates, this class is the adapter
+ * between them and processing.
+ */
+public class Renderer {
+
+    public static void show(PApplet sketch, Point pnt) {
+        sketch.fill(pnt.getColor());
+        sketch.noStroke();
+        sketch.circle(pnt.x, pnt.y, pnt.getSize());
+    }
+
+    public static void show(PApplet sketch, Line lne) {
+        sketch.strokeWeight(2);
+        sketch.stroke(0);
+        float m = lne.getSlope();
+        float q = lne.getOffset();
+        if (Math.abs(m) > 30f) {
+            return;
+        }
+        sketch.line(0, q, sketch.width, m * sketch.width + q);
+    }
+
+    public static PVector shaderFormat(PApplet sketch, Line lne) {
+        // returns a vector holding slope and y coordinate offset for a line living in
+        // shader coordinates
+        // shader coordinates have y coordinates increasing as in the regular coordinate
+        // system
+        // so we need to invert the slope and y coordinate offset
+        return new PVector(-lne.getSlope(), sketch.height - lne.getOffset());
+    }
+
+    public static float[] linesToShader(PApplet sketch, ArrayList<Line> lines) {
+        float[] shaderLines = new float[2 * lines.size()];
+        int index = 0;
+        for (Line lne : lines) {
+            PVector lneShader = shaderFormat(sketch, lne);
+            shaderLines[index] = lneShader.x;
+            shaderLines[index + 1] = lneShader.y;
+            index += 2;
+        }
+        return shaderLines;
+    }
+}
@@ -1,12 +1,17 @@
 package com.separability.sketches;
 
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Set;
 
 import com.separability.Utils;
+import com.separability.census.Checkpoint;
 import com.separability.geometry.Line;
 import com.separability.geometry.PointSet;
 import com.separability.geometry.PointSetFamily;
+import com.separability.geometry.PointSetFamilyFormat;
 import com.separability.geometry.PointSetFuzzer;
 import com.separability.gui.PointSetFamilyGUI;
 
@@ -19,6 +24,17 @@ public class FuzzingSketch extends PointSetFamilyGUI {
 
     ArrayList<ArrayList<Line>> lneArrangements;
 
+    // the fuzzers and the counters are saved to the checkpoint at most every
+    // CHECKPOINT_INTERVAL milliseconds and after every saved notalpha family, a
+    // restarted sketch continues with the family after the last saved one: the
+    // families since then are checked again, but no notalpha family is saved twice
+    // (unless the sketch stops between saving the family and the checkpoint)
+    static final long CHECKPOINT_INTERVAL = 60000;
+    Path checkpoint;
+    long lastSaved = 0;
+    long checked = 0;
+    long notAlpha = 0;
+
     public void setup() {
         super.setup();
 
@@ -29,6 +45,49 @@ public class FuzzingSketch extends PointSetFamilyGUI {
         lneArrangements = null;
 
         psf = null;
+        checkpoint = Path.of(sketchPath("fuzzing.ckpt"));
+    }
+
+    boolean restore() {
+        // restores the fuzzers and counters from the checkpoint, if there is one for
+        // the same number of colours
+        try (DataInputStream in = Checkpoint.open(checkpoint, "fuzzing")) {
+            if (in == null || in.readInt() != psf.size()) {
+                return false;
+            }
+            checked = in.readLong();
+            notAlpha = in.readLong();
+            for (PointSetFuzzer fuzzer : psf) {
+                fuzzer.readState(in);
+            }
+            println("resumed after " + checked + " families, " + notAlpha + " not alpha splittable");
+            return true;
+        } catch (IOException e) {
+            println("cannot resume from " + checkpoint + ": " + e.getMessage());
+            return false;
+        }
+    }
+
+    void save() {
+        try {
+            Checkpoint.save(checkpoint, "fuzzing", out -> {
+                out.writeInt(psf.size());
+                out.writeLong(checked);
+                out.writeLong(notAlpha);
+                for (PointSetFuzzer fuzzer : psf) {
+                    fuzzer.writeState(out);
+                }
+            });
+        } catch (IOException e) {
+            println("cannot save " + checkpoint + ": " + e.getMessage());
+        }
+    }
+
+    void nextFamily() {
+        for (int i = 0; i < points.size(); i++) {
+            points.set(i, psf.get(i).nextPointSet());
+        }
+        points.setCutDefinition(PointSetFamily.COLOURFUL_LINES);
     }
 
     public void incState() {
@@ -43,17 +102,19 @@ public class FuzzingSketch extends PointSetFamilyGUI {
             for (PointSet pntSet : points) {
                 psf.add(new PointSetFuzzer(pntSet));
             }
-        } else {
-
-            for (int i = 0; i < points.size(); i++) {
-                points.set(i, psf.get(i).nextPointSet());
+            if (restore()) {
+                // the family of the checkpoint has been checked already
+                nextFamily();
             }
-            points.setCutDefinition(PointSetFamily.COLOURFUL_LINES);
+        } else {
+            nextFamily();
         }
 
         Set<ArrayList<Integer>> impossAlpha = points.getImpossibleAlpha();
-        if (impossAlpha.size() > 0) {
+        boolean found = impossAlpha.size() > 0;
+        if (found) {
             println(impossAlpha);
+            notAlpha += 1;
             String name = "notalpha";
             println("not alpha splittable");
             // conjecture: 2-separability + at most 1 3-stabber => all alpha cuts
@@ -75,8 +136,13 @@ public class FuzzingSketch extends PointSetFamilyGUI {
             int numStabbers = Utils.computeThreeStabbers(points).size();
             name += "" + Utils.currName(this);
             name += "_" + numStabbers;
-            points.save("points/" + name + ".txt");
+            points.save(sketchPath("points/" + name + PointSetFamilyFormat.EXTENSION));
         }
 
+        checked += 1;
+        if (found || millis() - lastSaved >= CHECKPOINT_INTERVAL) {
+            save();
+            lastSaved = millis();
+        }
     }
 }
\ No newline at end of file
@@ -1,12 +1,17 @@
 package com.separability.sketches;
 
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.ArrayList;
 
 import com.separability.Utils;
+import com.separability.census.Checkpoint;
 import com.separability.geometry.Point;
 import com.separability.geometry.PointSet;
 import com.separability.geometry.PointSetReader;
 import com.separability.gui.PointSetGUI;
+import com.separability.gui.Renderer;
 
 public class SepSketch extends PointSetGUI {
 
@@ -19,9 +24,18 @@ public class SepSketch extends PointSetGUI {
     PointSet currSubset;
     int twoSeparable = 0;
 
+    // the record of the current point set and the count are saved to the
+    // checkpoint at most every CHECKPOINT_INTERVAL milliseconds, a restarted
+    // sketch continues at the saved record
+    static final long CHECKPOINT_INTERVAL = 60000;
+    Path checkpoint;
+    long lastSaved = 0;
+
     public void setup() {
         super.setup();
-        psr = new PointSetReader(this, "otypes07.b08");
+        psr = new PointSetReader(getCanvas(), sketchPath("otypes07.b08"));
+        checkpoint = Path.of(sketchPath("otypes07.ckpt"));
+        restore();
 
         points = psr.nextPointSet();
         currSubset = new PointSet();
@@ -37,17 +51,17 @@ public class SepSketch extends PointSetGUI {
 
         for (Point pnt : currSubset) {
             pnt.setColor(selectedColor);
-            pnt.show();
+            Renderer.show(this, pnt);
         }
 
-        if (!Utils.isCaratheodory(points, currSubset) && !Utils.isTverberg(points, currSubset)) {
+        if (!Utils.isCaratheodory(points, currSubset, this) && !Utils.isTverberg(points, currSubset)) {
             mode = 0;
         }
 
         fill(0);
         noStroke();
         textSize(20);
-        text(psr.getTotalPointSets() + "|" + state + "/" + nonSeparable.size(), width - 100, 40);
+        text(psr.position() + "|" + state + "/" + nonSeparable.size(), width - 100, 40);
 
     }
 
@@ -63,14 +77,47 @@ public class SepSketch extends PointSetGUI {
             points = psr.nextPointSet();
             if (points == null) {
                 println("no more point sets");
-                println(twoSeparable + "/" + psr.getTotalPointSets() + " are 2 separable");
+                println(twoSeparable + "/" + psr.size() + " are 2 separable");
                 noLoop();
                 return;
             }
             state = 1;
             nonSeparable = points.getNonTwoSeparable();
+            if (millis() - lastSaved >= CHECKPOINT_INTERVAL) {
+                save();
+                lastSaved = millis();
+            }
         }
         currSubset = nonSeparable.get(state - 1);
         lines.clear();
     }
+
+    void restore() {
+        // continues at the record of the checkpoint, if there is one
+        try (DataInputStream in = Checkpoint.open(checkpoint, "separability")) {
+            if (in == null) {
+                return;
+            }
+            long position = in.readLong();
+            twoSeparable = in.readInt();
+            psr.seek(position);
+            println("resumed at point set " + position + ", " + twoSeparable + " are 2 separable");
+        } catch (IOException e) {
+            println("cannot resume from " + checkpoint + ": " + e.getMessage());
+        }
+    }
+
+    void save() {
+        // the current point set is not counted yet, it is the first one after a
+        // restart
+        long position = psr.position() - 1;
+        try {
+            Checkpoint.save(checkpoint, "separability", out -> {
+                out.writeLong(position);
+                out.writeInt(twoSeparable);
+            });
+        } catch (IOException e) {
+            println("cannot save " + checkpoint + ": " + e.getMessage());
+        }
+    }
 }
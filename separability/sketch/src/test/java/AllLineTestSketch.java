@@ -34,7 +34,7 @@ public class AllLineTestSketch extends PointSetFamilyGUI {
         this.points = new PointSetFamily();
         if (pointsFiles.size() > 0) {
             fileIndex = 0;
-            this.points.load(this, this.pointsFiles.get(fileIndex));
+            this.points.load(getCanvas(), this.pointsFiles.get(fileIndex));
             this.points.setCutDefinition(this.cutDefinition);
             this.points.makeGeneral();
             Set<ArrayList<Integer>> imposs = points.getImpossibleAlpha();
@@ -139,7 +139,7 @@ public class AllLineTestSketch extends PointSetFamilyGUI {
         if (key == 'f' || key == 'v') {
             fileIndex = (fileIndex + pointsFiles.size() + (key == 'f' ? 1 : -1)) % pointsFiles.size();
             points = new PointSetFamily();
-            points.load(this, pointsFiles.get(fileIndex));
+            points.load(getCanvas(), pointsFiles.get(fileIndex));
             points.setCutDefinition(this.cutDefinition);
             points.makeGeneral();
             println();
@@ -0,0 +1,91 @@
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.BitSet;
+
+import org.junit.jupiter.api.Test;
+
+import com.separability.census.Census;
+import com.separability.census.CensusSummary;
+import com.separability.geometry.Canvas;
+import com.separability.geometry.PointSet;
+import com.separability.geometry.PointSetReader;
+
+// headless tests, these do not start a sketch
+public class CensusTest {
+
+    static final Canvas CANVAS = new Canvas(1000, 1000);
+
+    @Test
+    public void testShardedMatchesSequential() throws InterruptedException, IOException {
+        PointSetReader psr = new PointSetReader(CANVAS, "otypes08.b08");
+        long twoSeparable = 0;
+        long subsets = 0;
+        for (PointSet pntSet = psr.nextPointSet(); pntSet != null; pntSet = psr.nextPointSet()) {
+            BitSet masks = pntSet.nonTwoSeparableMasks();
+            twoSeparable += masks.isEmpty() ? 1 : 0;
+            subsets += masks.cardinality();
+        }
+        Census census = new Census(new PointSetReader(CANVAS, "otypes08.b08"));
+        census.setThreads(3);
+        census.setShardSize(257);
+        census.setExampleLimit(10);
+        long[] updates = { 0, 0 };
+        CensusSummary summary = census.run((done, total, soFar) -> {
+            assertTrue(done > updates[1] && done <= total);
+            updates[0] += 1;
+            updates[1] = done;
+        });
+        assertEquals(psr.size(), summary.getPointSets());
+        assertEquals(twoSeparable, summary.getTwoSeparable());
+        assertEquals(subsets, summary.getNonTwoSeparableSubsets());
+        assertEquals((psr.size() + 256) / 257, updates[0]);
+        // the examples are the first point sets that are not 2-separable
+        assertTrue(summary.getExamples().size() <= 10);
+        for (long index : summary.getExamples().keySet()) {
+            assertEquals(psr.get(index).nonTwoSeparableMasks(), summary.getExamples().get(index));
+        }
+        // merging in any order gives the same summary
+        census.setShardSize(psr.size());
+        census.setThreads(1);
+        CensusSummary single = census.run(null);
+        assertArrayEquals(single.getHistogram(), summary.getHistogram());
+        assertEquals(single.getExamples(), summary.getExamples());
+    }
+
+    @Test
+    public void testResumeFromCheckpoint() throws InterruptedException, IOException {
+        Path dir = Files.createTempDirectory("census");
+        Path file = dir.resolve("census.ckpt");
+        Census census = new Census(new PointSetReader(CANVAS, "otypes08.b08"));
+        census.setShardSize(100);
+        census.setThreads(2);
+        CensusSummary full = census.run(null);
+        // a census that dies after a few shards (checkpoint after every shard)
+        census.setCheckpoint(file, 0);
+        assertThrows(IllegalStateException.class, () -> census.run((done, total, soFar) -> {
+            if (done >= 1000) {
+                throw new IllegalStateException("crash");
+            }
+        }));
+        // resuming evaluates the remaining shards only
+        long[] first = { -1 };
+        CensusSummary resumed = census.run((done, total, soFar) -> {
+            if (first[0] < 0) {
+                first[0] = done;
+            }
+        });
+        assertTrue(first[0] > 1000);
+        assertEquals(full.getPointSets(), resumed.getPointSets());
+        assertEquals(full.getNonTwoSeparableSubsets(), resumed.getNonTwoSeparableSubsets());
+        assertArrayEquals(full.getHistogram(), resumed.getHistogram());
+        assertEquals(full.getExamples(), resumed.getExamples());
+        Files.delete(file);
+        Files.delete(dir);
+    }
+}
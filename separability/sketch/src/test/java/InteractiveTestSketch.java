@@ -21,7 +21,7 @@ public class InteractiveTestSketch extends AlphaSketch {
         this.points = new PointSetFamily();
         if (pointsFiles.size() > 0) {
             fileIndex = 0;
-            this.points.load(this, this.pointsFiles.get(fileIndex));
+            this.points.load(getCanvas(), this.pointsFiles.get(fileIndex));
         } else {
             cdl.countDown();
         }
@@ -59,7 +59,7 @@ public class InteractiveTestSketch extends AlphaSketch {
         if (key == 'f') {
             fileIndex = (fileIndex + 1) % pointsFiles.size();
             points = new PointSetFamily();
-            points.load(this, pointsFiles.get(fileIndex));
+            points.load(getCanvas(), pointsFiles.get(fileIndex));
             currAlpha = new ArrayList<Integer>();
             for (int i = 0; i < points.size(); i++) {
                 currAlpha.add(0);
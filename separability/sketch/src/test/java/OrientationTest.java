@@ -0,0 +1,78 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.math.BigDecimal;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import com.separability.geometry.Orientation;
+
+public class OrientationTest {
+
+    // reference implementation using arbitrary precision only
+    int orientReference(double ax, double ay, double bx, double by, double cx, double cy) {
+        BigDecimal left = new BigDecimal(bx).subtract(new BigDecimal(ax))
+                .multiply(new BigDecimal(cy).subtract(new BigDecimal(ay)));
+        BigDecimal right = new BigDecimal(by).subtract(new BigDecimal(ay))
+                .multiply(new BigDecimal(cx).subtract(new BigDecimal(ax)));
+        return left.compareTo(right);
+    }
+
+    @Test
+    public void testSimpleSigns() {
+        // y increases downwards in the sketch, so (5,10) is below the line (0,0)-(10,0)
+        assertEquals(1, Orientation.orient(0f, 0f, 10f, 0f, 5f, 10f));
+        assertEquals(-1, Orientation.orient(0f, 0f, 10f, 0f, 5f, -10f));
+        assertEquals(0, Orientation.orient(0f, 0f, 10f, 0f, 5f, 0f));
+        assertEquals(1, Orientation.orient(0L, 0L, 10L, 0L, 5L, 10L));
+        assertEquals(0, Orientation.orient(0L, 0L, 65535L, 65535L, 3L, 3L));
+    }
+
+    @Test
+    public void testCollinearIsExact() {
+        // points very close to a line, the old epsilon test classified them as on the
+        // line
+        assertEquals(0, Orientation.orient(0f, 0f, 997f, 13f, 1994f, 26f));
+        assertEquals(1, Orientation.orient(0f, 0f, 997f, 13f, 1994f, 26.001953f));
+        assertEquals(-1, Orientation.orient(0f, 0f, 997f, 13f, 1994f, 25.998047f));
+        // non-integer coordinates need the exact fallback
+        assertEquals(orientReference(0.1f, 0.1f, 0.3f, 0.3f, 0.2f, 0.2f),
+                Orientation.orient(0.1f, 0.1f, 0.3f, 0.3f, 0.2f, 0.2f));
+    }
+
+    @Test
+    public void testNearDegenerateAgainstReference() {
+        Random rnd = new Random(42);
+        for (int i = 0; i < 100000; i++) {
+            float ax = rnd.nextFloat() * 1000f;
+            float ay = rnd.nextFloat() * 1000f;
+            float bx = rnd.nextFloat() * 1000f;
+            float by = rnd.nextFloat() * 1000f;
+            // c is (nearly) on the line through a and b
+            float t = rnd.nextFloat();
+            float cx = ax + t * (bx - ax);
+            float cy = ay + t * (by - ay);
+            if (rnd.nextBoolean()) {
+                cx = Math.nextUp(cx);
+            }
+            assertEquals(orientReference(ax, ay, bx, by, cx, cy), Orientation.orient(ax, ay, bx, by, cx, cy));
+        }
+    }
+
+    @Test
+    public void testIntegerGridAgainstReference() {
+        Random rnd = new Random(7);
+        for (int i = 0; i < 100000; i++) {
+            int ax = rnd.nextInt(65536);
+            int ay = rnd.nextInt(65536);
+            int bx = rnd.nextInt(65536);
+            int by = rnd.nextInt(65536);
+            int k = rnd.nextInt(3);
+            int cx = ax + k * (bx - ax) / 2;
+            int cy = ay + k * (by - ay) / 2;
+            int expected = orientReference(ax, ay, bx, by, cx, cy);
+            assertEquals(expected, Orientation.orient((long) ax, ay, bx, by, cx, cy));
+            assertEquals(expected, Orientation.orient((float) ax, ay, bx, by, cx, cy));
+        }
+    }
+}
@@ -45,7 +45,7 @@ public class PointSetFamilyEditorTestSketch extends PointSetFamilyGUI {
         this.points = new PointSetFamily();
         if (pointsFiles.size() > 0) {
             fileIndex = 0;
-            this.points.load(this, this.pointsFiles.get(fileIndex));
+            this.points.load(getCanvas(), this.pointsFiles.get(fileIndex));
             printImposs();
             lneArrangements = this.points.lineArrangements();
         } else {
@@ -85,7 +85,7 @@ public class PointSetFamilyEditorTestSketch extends PointSetFamilyGUI {
         if (key == 'f' || key == 'v') {
             fileIndex = (fileIndex + pointsFiles.size() + (key == 'f' ? 1 : -1)) % pointsFiles.size();
             points = new PointSetFamily();
-            points.load(this, pointsFiles.get(fileIndex));
+            points.load(getCanvas(), pointsFiles.get(fileIndex));
             printImposs();
             println("----------------------");
             lines.clear();
@@ -94,7 +94,7 @@ public class PointSetFamilyEditorTestSketch extends PointSetFamilyGUI {
 
     public void mousePressed() {
         if (mouseButton == RIGHT) {
-            Point pnt = new Point(this, mouseX, mouseY);
+            Point pnt = new Point(mouseX, mouseY);
             int index = 0;
             if (keyPressed) {
                 if (key == '1') {
@@ -129,9 +129,10 @@ public class PointSetFamilyEditorTestSketch extends PointSetFamilyGUI {
         for (PointSet pntSet : points) {
             Set<Point> todel = new HashSet<Point>();
             for (Point pnt : pntSet) {
-                if (pnt.dist(new Point(this, mouseX, mouseY)) < pnt.getSize()) {
+                if (pnt.dist(new Point(mouseX, mouseY)) < pnt.getSize()) {
                     pnt.x = mouseX;
                     pnt.y = mouseY;
+                    pntSet.changed();
                     if (keyPressed && key == DELETE) {
                         todel.add(pnt);
                     }
@@ -0,0 +1,579 @@
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.jupiter.api.Test;
+
+import com.separability.geometry.AlphaSearchStats;
+import com.separability.geometry.Canvas;
+import com.separability.geometry.Chirotope;
+import com.separability.geometry.Line;
+import com.separability.geometry.LineArrangements;
+import com.separability.geometry.Orientation;
+import com.separability.geometry.Point;
+import com.separability.geometry.PointSet;
+import com.separability.geometry.PointSetFamily;
+import com.separability.geometry.PointSetFamilyFormat;
+
+// headless tests, these do not start a sketch
+public class PointSetFamilyTest {
+
+    static final Canvas CANVAS = new Canvas(1000, 1000);
+    static final String FAMILY = "points/pointSet_2024-06-18-14-20-21-71350.txt";
+
+    PointSetFamily load(String filename) {
+        PointSetFamily points = new PointSetFamily();
+        points.load(CANVAS, filename);
+        return points;
+    }
+
+    @Test
+    public void testLoadSave() throws IOException {
+        PointSetFamily points = load(FAMILY);
+        assertEquals(4, points.size());
+        File tmp = File.createTempFile("family", ".txt");
+        tmp.deleteOnExit();
+        points.save(tmp.getPath());
+        PointSetFamily loaded = load(tmp.getPath());
+        assertEquals(points.size(), loaded.size());
+        for (int i = 0; i < points.size(); i++) {
+            assertEquals(points.get(i).size(), loaded.get(i).size());
+            for (int j = 0; j < points.get(i).size(); j++) {
+                assertEquals(points.get(i).get(j).x, loaded.get(i).get(j).x);
+                assertEquals(points.get(i).get(j).y, loaded.get(i).get(j).y);
+            }
+        }
+    }
+
+    void assertSameCoordinates(PointSetFamily expected, PointSetFamily actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).size(), actual.get(i).size());
+            for (int j = 0; j < expected.get(i).size(); j++) {
+                assertEquals(expected.get(i).getX(j), actual.get(i).getX(j));
+                assertEquals(expected.get(i).getY(j), actual.get(i).getY(j));
+            }
+        }
+    }
+
+    @Test
+    public void testBinaryFormat() throws IOException {
+        // a text file converted to the binary format loads with the same coordinates
+        PointSetFamily points = load(FAMILY);
+        Path dir = Files.createTempDirectory("families");
+        Path text = Files.copy(Path.of(FAMILY), dir.resolve("family.txt"));
+        Path binary = PointSetFamilyFormat.convert(text);
+        assertEquals(dir.resolve("family" + PointSetFamilyFormat.EXTENSION), binary);
+        assertSameCoordinates(points, load(binary.toString()));
+        assertTrue(Files.size(binary) < Files.size(text));
+
+        // whole coordinates are stored with 16 bits, anything else as floats
+        PointSetFamily grid = new PointSetFamily();
+        Random rnd = new Random(3);
+        for (int c = 0; c < 3; c++) {
+            PointSet pntSet = new PointSet(CANVAS);
+            for (int i = 0; i < 5 + c; i++) {
+                pntSet.add(new Point(rnd.nextInt(1000), rnd.nextInt(1000)));
+            }
+            grid.add(pntSet);
+        }
+        ByteBuffer bytes = PointSetFamilyFormat.write(grid);
+        assertEquals(4 * (4 + 3) + 2 * 2 * 18, bytes.remaining());
+        assertSameCoordinates(grid, PointSetFamilyFormat.read(CANVAS, bytes));
+        assertEquals(0, bytes.remaining());
+        grid.get(1).get(2).x += 0.5f;
+        grid.get(1).changed();
+        bytes = PointSetFamilyFormat.write(grid);
+        assertEquals(4 * (4 + 3) + 4 * 2 * 18, bytes.remaining());
+        assertSameCoordinates(grid, PointSetFamilyFormat.read(CANVAS, bytes));
+
+        // truncated or foreign data is rejected
+        ByteBuffer truncated = PointSetFamilyFormat.write(grid).limit(50);
+        assertThrows(IllegalArgumentException.class, () -> PointSetFamilyFormat.read(CANVAS, truncated));
+        ByteBuffer foreign = ByteBuffer.wrap(Files.readAllBytes(text));
+        assertThrows(IllegalArgumentException.class, () -> PointSetFamilyFormat.read(CANVAS, foreign));
+        // corrupt counts in the header are format errors, nothing huge is allocated
+        for (int[] corrupt : new int[][] { { 12, -1 }, { 12, Integer.MAX_VALUE }, { 16, Integer.MAX_VALUE } }) {
+            ByteBuffer header = PointSetFamilyFormat.write(grid).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(corrupt[0], corrupt[1]);
+            assertThrows(IllegalArgumentException.class, () -> PointSetFamilyFormat.read(CANVAS, header));
+        }
+    }
+
+    @Test
+    public void testAlphaHeadless() {
+        PointSetFamily points = load(FAMILY);
+        points.setCutDefinition(PointSetFamily.COLOURFUL_LINES);
+        Set<ArrayList<Integer>> all = points.getAllAlpha();
+        Set<ArrayList<Integer>> imposs = points.getImpossibleAlpha();
+        int boxSize = 1;
+        for (int i = 0; i < points.size(); i++) {
+            boxSize *= points.get(i).size() + 1;
+        }
+        // every alpha vector in the box is either possible or impossible
+        for (ArrayList<Integer> alpha : imposs) {
+            assertTrue(!all.contains(alpha));
+        }
+        assertEquals(boxSize, all.size() + imposs.size());
+    }
+
+    @Test
+    public void testChirotope() {
+        PointSetFamily points = load(FAMILY);
+        Chirotope chi = points.chirotope();
+        int n = points.offset(points.size());
+        assertEquals(n, chi.size());
+        float[] xs = new float[n];
+        float[] ys = new float[n];
+        for (int c = 0; c < points.size(); c++) {
+            for (int i = 0; i < points.get(c).size(); i++) {
+                xs[points.offset(c) + i] = points.get(c).get(i).x;
+                ys[points.offset(c) + i] = points.get(c).get(i).y;
+            }
+        }
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++) {
+                for (int k = 0; k < n; k++) {
+                    assertEquals(Orientation.orient(xs[i], ys[i], xs[j], ys[j], xs[k], ys[k]), chi.sign(i, j, k));
+                }
+            }
+        }
+        // moving a point invalidates the table
+        points.get(1).get(0).x += 1;
+        points.get(1).changed();
+        assertTrue(chi != points.chirotope());
+    }
+
+    @Test
+    public void testAlphaLookupMatchesCoordinates() {
+        // the alpha vectors of lines through points of the family (chirotope lookups)
+        // are the same as for plain lines (orientation predicates)
+        PointSetFamily points = load(FAMILY);
+        for (int def = PointSetFamily.CUT_LINES; def <= PointSetFamily.COLOURFUL_LINES_CONSISTENT; def++) {
+            points.setCutDefinition(def);
+            for (ArrayList<Line> lnes : points.lineArrangements()) {
+                ArrayList<Line> plain = new ArrayList<Line>();
+                for (Line lne : lnes) {
+                    assertTrue(lne.getChirotope() == points.chirotope());
+                    plain.add(new Line(lne.getStartPoint(), lne.getEndPoint()));
+                }
+                assertEquals(points.getAlpha(false, plain), points.getAlpha(false, lnes));
+                assertEquals(points.getAlpha(true, plain), points.getAlpha(true, lnes));
+            }
+        }
+    }
+
+    @Test
+    public void testLazyArrangements() {
+        PointSetFamily points = load(FAMILY);
+        int n = points.offset(points.size());
+        for (int def = PointSetFamily.CUT_LINES; def <= PointSetFamily.COLOURFUL_LINES_CONSISTENT; def++) {
+            points.setCutDefinition(def);
+            LineArrangements arrangements = points.arrangements();
+            long count = 0;
+            for (ArrayList<Line> lnes : arrangements) {
+                assertEquals(2, lnes.size());
+                count += 1;
+            }
+            assertEquals(arrangements.size(), count);
+            assertEquals(count, arrangements.stream().parallel().count());
+            assertEquals(count, arrangements.stream().parallel().filter(lnes -> lnes.size() == 2).count());
+            if (def == PointSetFamily.CUT_LINES) {
+                assertEquals((long) n * (n - 1) * n * (n - 1), count);
+            }
+        }
+    }
+
+    @Test
+    public void testParallelAlpha() {
+        PointSetFamily points = load(FAMILY);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        for (int def = PointSetFamily.CUT_LINES; def <= PointSetFamily.COLOURFUL_LINES_CONSISTENT; def++) {
+            points.setCutDefinition(def);
+            assertEquals(points.getAllAlpha(), points.getAllAlpha(pool));
+            assertEquals(points.getImpossibleAlpha(), points.getImpossibleAlpha(pool));
+        }
+        pool.shutdown();
+    }
+
+    @Test
+    public void testAlphaCodes() {
+        PointSetFamily points = load(FAMILY);
+        points.setCutDefinition(PointSetFamily.CUT_LINES_TWO_COL);
+        long box = points.alphaBoxSize();
+        for (long code = 0; code < box; code++) {
+            assertEquals(code, points.alphaCode(points.alphaOf(code)));
+        }
+        // colour 0 is the least significant digit
+        assertEquals(1, points.alphaOf(1).get(0));
+        BitSet codes = points.getAllAlphaCodes(null);
+        Set<ArrayList<Integer>> all = points.getAllAlpha();
+        assertEquals(all.size(), codes.cardinality());
+        for (ArrayList<Integer> alpha : all) {
+            assertTrue(codes.get((int) points.alphaCode(alpha)));
+        }
+    }
+
+    boolean matchesAlphaReference(PointSetFamily points, ArrayList<Line> lines, ArrayList<Integer> alpha) {
+        // matchesAlpha from separate getAlpha and countPointsOn passes
+        ArrayList<Integer> lineAlphaNeg = points.getAlpha(true, lines);
+        ArrayList<Integer> lineAlphaPos = points.getAlpha(false, lines);
+        if (alpha.equals(lineAlphaNeg) || alpha.equals(lineAlphaPos)) {
+            return true;
+        }
+        ArrayList<Integer> newAlpha = new ArrayList<Integer>(alpha);
+        for (int i = 0; i < newAlpha.size(); i++) {
+            if (newAlpha.get(i) == 0) {
+                newAlpha.set(i, points.get(i).countPointsOn(lines));
+            }
+        }
+        return newAlpha.equals(lineAlphaNeg) || newAlpha.equals(lineAlphaPos);
+    }
+
+    @Test
+    public void testClassifyMatchesCounting() {
+        PointSetFamily points = load(FAMILY);
+        long box = points.alphaBoxSize();
+        int[] counts = null;
+        for (int def = PointSetFamily.CUT_LINES_TWO_COL; def <= PointSetFamily.COLOURFUL_LINES_CONSISTENT; def++) {
+            points.setCutDefinition(def);
+            int k = 0;
+            for (ArrayList<Line> lnes : points.arrangements()) {
+                k += 1;
+                if (k % 5 != 0) {
+                    continue;
+                }
+                counts = points.classify(lnes, counts);
+                for (int c = 0; c < points.size(); c++) {
+                    assertEquals(points.get(c).size(), counts[3 * c + PointSetFamily.BELOW]
+                            + counts[3 * c + PointSetFamily.ABOVE] + counts[3 * c + PointSetFamily.ON]);
+                    assertEquals(points.get(c).countPointsOn(lnes), counts[3 * c + PointSetFamily.ON]);
+                }
+                for (long code = k % 7; code < box; code += 7) {
+                    ArrayList<Integer> alpha = points.alphaOf(code);
+                    assertEquals(matchesAlphaReference(points, lnes, alpha), points.matchesAlpha(lnes, alpha));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testCanonicalArrangements() {
+        PointSetFamily points = load(FAMILY);
+        for (int def = PointSetFamily.CUT_LINES; def <= PointSetFamily.CUT_LINES_TWO_COL; def++) {
+            points.setCutDefinition(def);
+            LineArrangements canonical = points.arrangements(true);
+            long weight = 0;
+            for (int row = 0; row < canonical.rows(); row++) {
+                for (int column = 0; column < canonical.columns(row); column++) {
+                    weight += canonical.multiplicity(row, column);
+                }
+            }
+            assertEquals(points.arrangements(false).size(), weight);
+            points.setCanonical(true);
+            Set<ArrayList<Integer>> all = points.getAllAlpha();
+            points.setCanonical(false);
+            assertEquals(all, points.getAllAlpha());
+            for (long code = 0; code < points.alphaBoxSize(); code += 3) {
+                ArrayList<Integer> alpha = points.alphaOf(code);
+                points.setCanonical(true);
+                boolean found = points.hasAlpha(alpha, null);
+                points.setCanonical(false);
+                assertEquals(points.hasAlpha(alpha, null), found);
+            }
+        }
+    }
+
+    boolean hasAlphaReference(PointSetFamily points, ArrayList<Integer> alpha) {
+        // hasAlpha by scanning all arrangements
+        for (ArrayList<Line> lnes : points.lineArrangements()) {
+            if (points.matchesAlpha(lnes, alpha)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Test
+    public void testColourfulCursor() {
+        // the colourful arrangements follow colourfulPointSets without creating them
+        PointSetFamily points = load(FAMILY);
+        ArrayList<PointSet> clfl = points.colourfulPointSets();
+        assertEquals(clfl.size(), points.colourfulCount());
+        points.setCutDefinition(PointSetFamily.COLOURFUL_LINES);
+        LineArrangements arrangements = points.arrangements();
+        assertEquals(clfl.size(), arrangements.rows());
+        // a range starts in the middle of the enumeration
+        ArrayList<Line> holder = new ArrayList<Line>();
+        int[] count = { 0 };
+        long from = clfl.size() / 3;
+        points.forEachColourful(from, clfl.size(), ids -> {
+            int row = (int) from + count[0];
+            for (int c = 0; c < ids.length; c++) {
+                assertEquals(clfl.get(row).get(c), points.get(c).get(ids[c] - points.offset(c)));
+            }
+            // second arrangement: lines through colours 0, 2 and 1, 3
+            arrangements.get(row, 1, holder);
+            assertEquals(Math.min(ids[0], ids[2]), Math.min(holder.get(0).getStartId(), holder.get(0).getEndId()));
+            assertEquals(Math.max(ids[0], ids[2]), Math.max(holder.get(0).getStartId(), holder.get(0).getEndId()));
+            assertEquals(Math.min(ids[1], ids[3]), Math.min(holder.get(1).getStartId(), holder.get(1).getEndId()));
+            assertEquals(Math.max(ids[1], ids[3]), Math.max(holder.get(1).getStartId(), holder.get(1).getEndId()));
+            count[0] += 1;
+            return true;
+        });
+        assertEquals(clfl.size() - from, count[0]);
+    }
+
+    @Test
+    public void testIncrementalAlpha() {
+        // random edits on a small grid (with collinear points), the tracked alpha
+        // vectors and multiplicities match a full recomputation after every edit
+        Random rnd = new Random(7);
+        for (int def = PointSetFamily.CUT_LINES; def <= PointSetFamily.COLOURFUL_LINES_CONSISTENT; def++) {
+            PointSetFamily points = new PointSetFamily();
+            for (int c = 0; c < 4; c++) {
+                PointSet pntSet = new PointSet();
+                for (int i = 0; i < 3; i++) {
+                    pntSet.add(new Point(rnd.nextInt(8), rnd.nextInt(8)));
+                }
+                points.add(pntSet);
+            }
+            points.setCutDefinition(def);
+            points.setIncremental(true);
+            PointSetFamily reference = new PointSetFamily(points);
+            reference.setCutDefinition(def);
+            for (int edit = 0; edit < 12; edit++) {
+                assertEquals(reference.getAllAlphaCodes(null), points.getAllAlphaCodes(null));
+                long[] counts = multiplicitiesReference(reference);
+                for (int code = 0; code < counts.length; code++) {
+                    assertEquals(counts[code], points.getAlphaCount(points.alphaOf(code)));
+                }
+                int colour = rnd.nextInt(4);
+                int size = points.get(colour).size();
+                int op = rnd.nextInt(3);
+                if (op == 0 && size > 0) {
+                    points.movePoint(colour, rnd.nextInt(size), rnd.nextInt(8), rnd.nextInt(8));
+                } else if (op == 1 || size < 2) {
+                    points.addPoint(colour, new Point(rnd.nextInt(8), rnd.nextInt(8)));
+                } else {
+                    points.removePoint(colour, rnd.nextInt(size));
+                }
+            }
+        }
+    }
+
+    long[] multiplicitiesReference(PointSetFamily points) {
+        // counts the alpha vectors of the sides of all brute force arrangements
+        long[] counts = new long[(int) points.alphaBoxSize()];
+        for (ArrayList<Line> lines : points.arrangements(false)) {
+            long lower = points.alphaCode(points.getAlpha(false, lines));
+            long upper = points.alphaCode(points.getAlpha(true, lines));
+            counts[(int) lower] += 1;
+            if (upper != lower) {
+                counts[(int) upper] += 1;
+            }
+        }
+        return counts;
+    }
+
+    @Test
+    public void testAlphaCounts() {
+        PointSetFamily points = load(FAMILY);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        for (int def = PointSetFamily.CUT_LINES_TWO_COL; def <= PointSetFamily.COLOURFUL_LINES_CONSISTENT; def++) {
+            points.setCutDefinition(def);
+            long[] counts = points.getAlphaCounts(null);
+            assertArrayEquals(counts, points.getAlphaCounts(pool));
+            BitSet all = points.getAllAlphaCodes(null);
+            long total = 0;
+            for (int code = 0; code < counts.length; code++) {
+                assertEquals(all.get(code), counts[code] > 0);
+                total += counts[code];
+            }
+            // every arrangement realises one or two alpha vectors
+            long arrangements = points.arrangements(false).size();
+            assertTrue(arrangements <= total && total <= 2 * arrangements);
+            if (def >= PointSetFamily.COLOURFUL_LINES) {
+                assertArrayEquals(multiplicitiesReference(points), counts);
+            }
+            for (int code = 0; code < counts.length; code++) {
+                assertEquals(counts[code], points.getAlphaCount(points.alphaOf(code)));
+            }
+        }
+        pool.shutdown();
+        // vectors outside the alpha box are not realised
+        ArrayList<Integer> alpha = points.alphaOf(0);
+        alpha.set(1, points.get(1).size() + 1);
+        assertEquals(0, points.getAlphaCount(alpha));
+        alpha.set(1, -1);
+        assertEquals(0, points.getAlphaCount(alpha));
+        alpha.remove(1);
+        assertEquals(0, points.getAlphaCount(alpha));
+        // editing the family invalidates the counts
+        points.setCutDefinition(PointSetFamily.CUT_LINES);
+        points.getAlphaCount(points.alphaOf(0));
+        points.get(0).get(0).x += 300;
+        points.get(0).changed();
+        long[] counts = points.getAlphaCounts(null);
+        for (int code = 0; code < counts.length; code++) {
+            assertEquals(counts[code], points.getAlphaCount(points.alphaOf(code)));
+        }
+    }
+
+    @Test
+    public void testAlphaPerDefinition() {
+        // one pass gives the alpha vectors of every cut definition
+        PointSetFamily points = load(FAMILY);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        BitSet[] perDefinition = points.getAllAlphaCodesPerDefinition(null);
+        BitSet[] parallel = points.getAllAlphaCodesPerDefinition(pool);
+        for (int def = PointSetFamily.CUT_LINES; def <= PointSetFamily.COLOURFUL_LINES_CONSISTENT; def++) {
+            points.setCutDefinition(def);
+            assertEquals(points.getAllAlphaCodes(null), perDefinition[def]);
+            assertEquals(perDefinition[def], parallel[def]);
+        }
+        assertEquals(points.getAllAlpha(), points.getAllAlphaPerDefinition(null).get(PointSetFamily.COLOURFUL_LINES_CONSISTENT));
+        pool.shutdown();
+    }
+
+    @Test
+    public void testAlphaIndex() {
+        PointSetFamily points = load(FAMILY);
+        for (int def = PointSetFamily.CUT_LINES_TWO_COL; def <= PointSetFamily.COLOURFUL_LINES_CONSISTENT; def++) {
+            points.setCutDefinition(def);
+            for (long code = 0; code < points.alphaBoxSize(); code++) {
+                ArrayList<Integer> alpha = points.alphaOf(code);
+                boolean expected = hasAlphaReference(points, alpha);
+                ArrayList<Line> witness = new ArrayList<Line>();
+                assertEquals(expected, points.hasAlpha(alpha, witness));
+                if (expected) {
+                    assertTrue(points.matchesAlpha(witness, alpha));
+                }
+            }
+        }
+        // editing the family invalidates the index
+        points.setCutDefinition(PointSetFamily.COLOURFUL_LINES);
+        points.hasAlpha(points.alphaOf(0), null);
+        points.get(0).get(0).x += 300;
+        points.get(0).get(0).y += 300;
+        points.get(0).changed();
+        for (long code = 0; code < points.alphaBoxSize(); code++) {
+            ArrayList<Integer> alpha = points.alphaOf(code);
+            assertEquals(hasAlphaReference(points, alpha), points.hasAlpha(alpha, null));
+        }
+    }
+
+    @Test
+    public void testHashedAlphaIndex() {
+        // 16 colours of 3 points: the alpha box (4^16) is far larger than the number
+        // of arrangements, the index only stores the realised codes
+        PointSetFamily points = new PointSetFamily();
+        Random rnd = new Random(5);
+        for (int c = 0; c < 16; c++) {
+            PointSet pntSet = new PointSet(CANVAS);
+            for (int i = 0; i < 3; i++) {
+                pntSet.add(new Point(rnd.nextFloat() * 1000, rnd.nextFloat() * 1000));
+            }
+            points.add(pntSet);
+        }
+        points.setCutDefinition(PointSetFamily.CUT_LINES);
+        assertTrue(points.alphaBoxSize() > Integer.MAX_VALUE);
+        ArrayList<ArrayList<Line>> sample = new ArrayList<ArrayList<Line>>();
+        int skip = 0;
+        for (ArrayList<Line> lnes : points.lineArrangements()) {
+            if (skip++ % 100000 == 0) {
+                sample.add(lnes);
+            }
+        }
+        for (ArrayList<Line> lnes : sample) {
+            ArrayList<Integer> alpha = points.getAlpha(false, lnes);
+            ArrayList<Line> witness = new ArrayList<Line>();
+            assertTrue(points.hasAlpha(alpha, witness));
+            assertTrue(points.matchesAlpha(witness, alpha));
+        }
+        for (int i = 0; i < 3; i++) {
+            ArrayList<Integer> alpha = points.alphaOf(rnd.nextLong(points.alphaBoxSize()));
+            assertEquals(hasAlphaReference(points, alpha), points.hasAlpha(alpha, null));
+        }
+    }
+
+    @Test
+    public void testTwoLineSolver() {
+        PointSetFamily points = load(FAMILY);
+        for (int def = PointSetFamily.CUT_LINES; def <= PointSetFamily.CUT_LINES_TWO_COL; def++) {
+            points.setCutDefinition(def);
+            PointSetFamily solved = load(FAMILY);
+            solved.setCutDefinition(def);
+            solved.setIndexLimit(0);
+            long pruned = 0;
+            for (long code = 0; code < points.alphaBoxSize(); code++) {
+                ArrayList<Integer> alpha = points.alphaOf(code);
+                ArrayList<Line> witness = new ArrayList<Line>();
+                boolean found = solved.hasAlpha(alpha, witness);
+                assertEquals(points.hasAlpha(alpha, null), found);
+                AlphaSearchStats stats = solved.getSearchStats();
+                assertTrue(stats.getFirstLinesPruned() <= stats.getFirstLines());
+                assertTrue(stats.getGroupsPruned() <= stats.getGroups());
+                pruned += stats.getFirstLinesPruned() + stats.getGroupsPruned();
+                if (found) {
+                    assertTrue(solved.matchesAlpha(witness, alpha));
+                }
+            }
+            assertTrue(pruned > 0);
+        }
+    }
+
+    @Test
+    public void testTwoLineSolverLarge() {
+        // 3 colours of 40 points: the second lines are looked up by the keys a first
+        // line requires, realised or not, only a small part of all pairs is checked
+        PointSetFamily points = new PointSetFamily();
+        Random rnd = new Random(11);
+        for (int c = 0; c < 3; c++) {
+            PointSet pntSet = new PointSet(CANVAS);
+            for (int i = 0; i < 40; i++) {
+                pntSet.add(new Point(rnd.nextFloat() * 1000, rnd.nextFloat() * 1000));
+            }
+            points.add(pntSet);
+        }
+        points.setCutDefinition(PointSetFamily.CUT_LINES);
+        points.setIndexLimit(0);
+        ArrayList<Line> lines = points.cutLines();
+        // the solver uses every line once (cutLines has both directions)
+        long allPairs = (long) lines.size() / 2 * (lines.size() / 2 + 1) / 2;
+        long pairs = 0;
+        for (int i = 0; i < 20; i++) {
+            ArrayList<Line> lnes = new ArrayList<Line>();
+            lnes.add(lines.get(rnd.nextInt(lines.size())));
+            lnes.add(lines.get(rnd.nextInt(lines.size())));
+            ArrayList<Integer> alpha = points.getAlpha(false, lnes);
+            ArrayList<Line> witness = new ArrayList<Line>();
+            assertTrue(points.hasAlpha(alpha, witness));
+            assertTrue(points.matchesAlpha(witness, alpha));
+            pairs += points.getSearchStats().getPairs();
+        }
+        for (int i = 0; i < 20; i++) {
+            ArrayList<Integer> alpha = points.alphaOf(rnd.nextLong(points.alphaBoxSize()));
+            ArrayList<Line> witness = new ArrayList<Line>();
+            if (points.hasAlpha(alpha, witness)) {
+                assertTrue(points.matchesAlpha(witness, alpha));
+            }
+            pairs += points.getSearchStats().getPairs();
+        }
+        // on average a query checks less than 1% of the pairs of lines
+        assertTrue(pairs < 40 * allPairs / 100);
+    }
+}
@@ -0,0 +1,293 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.util.ArrayList;
+
+import org.junit.jupiter.api.Test;
+
+import com.separability.Utils;
+import com.separability.geometry.Canvas;
+import com.separability.geometry.Line;
+import com.separability.geometry.Point;
+import com.separability.geometry.PointSet;
+import com.separability.geometry.PointSetFuzzer;
+import com.separability.geometry.PointSetReader;
+
+// headless tests, these do not start a sketch
+public class PointSetTest {
+
+    static final Canvas CANVAS = new Canvas(1000, 1000);
+
+    ArrayList<PointSet> readAll(String filename) {
+        PointSetReader psr = new PointSetReader(CANVAS, filename);
+        ArrayList<PointSet> sets = new ArrayList<PointSet>();
+        for (PointSet pntSet = psr.nextPointSet(); pntSet != null; pntSet = psr.nextPointSet()) {
+            sets.add(pntSet);
+        }
+        return sets;
+    }
+
+    PointSet withObjects(PointSet compact) {
+        // same coordinates, but stored as point objects (and without grid)
+        ArrayList<Point> pnts = new ArrayList<Point>();
+        for (int i = 0; i < compact.size(); i++) {
+            pnts.add(new Point(compact.getX(i), compact.getY(i)));
+        }
+        return new PointSet(compact.getCanvas(), pnts);
+    }
+
+    @Test
+    public void testReaderIsCompact() {
+        ArrayList<PointSet> sets = readAll("otypes07.b08");
+        assertEquals(135, sets.size());
+        for (PointSet pntSet : sets) {
+            assertTrue(pntSet.isCompact());
+            assertTrue(pntSet.hasGrid());
+            assertEquals(7, pntSet.size());
+            // order types are in general position
+            assertTrue(pntSet.isGeneral());
+            assertTrue(pntSet.isCompact());
+        }
+    }
+
+    @Test
+    public void testReaderRandomAccess() throws IOException {
+        ArrayList<PointSet> sets = readAll("otypes08.b08");
+        PointSetReader psr = new PointSetReader(CANVAS, "otypes08.b08");
+        assertEquals(sets.size(), psr.size());
+        for (int i = sets.size() - 1; i >= 0; i -= 97) {
+            PointSet pntSet = psr.get(i);
+            ByteBuffer raw = psr.raw(i);
+            assertEquals(16, raw.remaining());
+            for (int j = 0; j < 8; j++) {
+                assertEquals(sets.get(i).getX(j), pntSet.getX(j));
+                assertEquals(sets.get(i).getY(j), pntSet.getY(j));
+                // the raw bytes are the unsigned grid coordinates
+                assertEquals(sets.get(i).getX(j), 100 + 800 * (Byte.toUnsignedInt(raw.get(2 * j)) / 255f), 1e-3);
+            }
+        }
+        // slices and seek continue at arbitrary records
+        PointSetReader slice = psr.slice(1000, 2000);
+        assertEquals(1000, slice.size());
+        slice.seek(990);
+        for (int i = 1990; i < 2000; i++) {
+            assertEquals(sets.get(i).getY(7), slice.nextPointSet().getY(7));
+        }
+        assertEquals(null, slice.nextPointSet());
+        // a partial record is an error, not a short read
+        File dir = Files.createTempDirectory("otypes").toFile();
+        File truncated = new File(dir, "otypes07.b08");
+        Files.write(truncated.toPath(), new byte[15]);
+        assertThrows(IllegalArgumentException.class, () -> new PointSetReader(CANVAS, truncated.getPath()));
+        truncated.delete();
+        dir.delete();
+    }
+
+    @Test
+    public void testReader16Bit() throws IOException {
+        // the same order types with 16 bit coordinates (b * 257 is at the same relative
+        // position of the grid)
+        ArrayList<PointSet> sets = readAll("otypes07.b08");
+        ByteBuffer wide = ByteBuffer.allocate(sets.size() * 7 * 4).order(ByteOrder.LITTLE_ENDIAN);
+        PointSetReader narrow = new PointSetReader(CANVAS, "otypes07.b08");
+        for (int i = 0; i < narrow.size(); i++) {
+            ByteBuffer raw = narrow.raw(i);
+            while (raw.hasRemaining()) {
+                wide.putShort((short) (Byte.toUnsignedInt(raw.get()) * 257));
+            }
+        }
+        File dir = Files.createTempDirectory("otypes").toFile();
+        File file = new File(dir, "otypes07.b16");
+        Files.write(file.toPath(), wide.array());
+        PointSetReader psr = new PointSetReader(CANVAS, file.getPath());
+        assertEquals(16, psr.getCoordinateBits());
+        assertEquals(sets.size(), psr.size());
+        for (PointSet pntSet : sets) {
+            PointSet read = psr.nextPointSet();
+            assertTrue(read.hasGrid());
+            for (int j = 0; j < 7; j++) {
+                assertEquals(pntSet.getX(j), read.getX(j), 1e-3);
+                assertEquals(pntSet.getY(j), read.getY(j), 1e-3);
+            }
+            assertEquals(pntSet.nonTwoSeparableMasks(), read.nonTwoSeparableMasks());
+        }
+        file.delete();
+        dir.delete();
+    }
+
+    @Test
+    public void testReader16BitNarrow() throws IOException {
+        // the same order types squeezed into a few grid units of a 16 bit grid, the
+        // float coordinates of neighbouring points differ by less than any useful
+        // epsilon, the census has to use the exact grid
+        ArrayList<PointSet> sets = readAll("otypes07.b08");
+        ByteBuffer wide = ByteBuffer.allocate(sets.size() * 7 * 4).order(ByteOrder.LITTLE_ENDIAN);
+        PointSetReader narrow = new PointSetReader(CANVAS, "otypes07.b08");
+        for (int i = 0; i < narrow.size(); i++) {
+            ByteBuffer raw = narrow.raw(i);
+            while (raw.hasRemaining()) {
+                wide.putShort((short) (30000 + Byte.toUnsignedInt(raw.get())));
+            }
+        }
+        File dir = Files.createTempDirectory("otypes").toFile();
+        File file = new File(dir, "otypes07.b16");
+        Files.write(file.toPath(), wide.array());
+        PointSetReader psr = new PointSetReader(CANVAS, file.getPath());
+        for (PointSet pntSet : sets) {
+            PointSet read = psr.nextPointSet();
+            assertTrue(read.isGeneral());
+            assertEquals(pntSet.nonTwoSeparableMasks(), read.nonTwoSeparableMasks());
+            // where the float coordinates are far enough apart, both agree
+            assertEquals(withObjects(pntSet).nonTwoSeparableMasks(), pntSet.nonTwoSeparableMasks());
+        }
+        file.delete();
+        dir.delete();
+    }
+
+    @Test
+    public void testCompactMatchesObjects() {
+        for (PointSet compact : readAll("otypes07.b08")) {
+            PointSet objects = withObjects(compact);
+            assertEquals(objects.getEpsilon(), compact.getEpsilon());
+            ArrayList<Line> lines = compact.getAllLines();
+            for (int i = 0; i < lines.size(); i += 7) {
+                ArrayList<Line> lnes = new ArrayList<Line>();
+                lnes.add(lines.get(i));
+                lnes.add(lines.get((3 * i + 1) % lines.size()));
+                assertEquals(objects.countPointsBelow(lnes), compact.countPointsBelow(lnes));
+                assertEquals(objects.countPointsAbove(lnes), compact.countPointsAbove(lnes));
+                assertEquals(objects.countPointsOn(lnes), compact.countPointsOn(lnes));
+            }
+        }
+    }
+
+    @Test
+    public void testVersionAndGrid() {
+        PointSet pntSet = readAll("otypes06.b08").get(0);
+        int version = pntSet.getVersion();
+        // accessing the points creates point objects, but does not change anything
+        Point pnt = pntSet.get(0);
+        assertFalse(pntSet.isCompact());
+        assertEquals(version, pntSet.getVersion());
+        assertTrue(pntSet.hasGrid());
+        // moving a point is not seen until it is reported, then it invalidates the grid
+        pnt.x += 1;
+        assertEquals(version, pntSet.getVersion());
+        pntSet.changed();
+        assertTrue(version != pntSet.getVersion());
+        assertFalse(pntSet.hasGrid());
+        assertEquals(pnt.x, pntSet.getX(0));
+        pntSet.compact();
+        assertTrue(pntSet.isCompact());
+        assertEquals(pnt.x, pntSet.getX(0));
+        // sub lists are read only, changes through them would not be seen
+        assertThrows(UnsupportedOperationException.class, () -> pntSet.subList(0, 2).set(0, new Point(1, 1)));
+    }
+
+    @Test
+    public void testPackedArraysNotWritten() {
+        // editing the points of a set made from packed arrays leaves the arrays alone
+        float[] xs = { 100, 200, 300 };
+        float[] ys = { 100, 300, 200 };
+        PointSet pntSet = new PointSet(CANVAS, xs, ys);
+        PointSet other = new PointSet(CANVAS, xs, ys);
+        pntSet.get(1).x = 250;
+        pntSet.changed();
+        assertEquals(250, pntSet.getX(1));
+        assertEquals(200, xs[1]);
+        assertEquals(200, other.getX(1));
+    }
+
+    boolean separateReference(PointSet pntSet, PointSet subset) {
+        // separate by counting the points below every pair of lines
+        for (ArrayList<Line> lines : pntSet.getTwoSeparators()) {
+            int selectedBelow = subset.countPointsBelow(lines);
+            int totalBelow = pntSet.countPointsBelow(lines);
+            if (selectedBelow == subset.size() && totalBelow == selectedBelow
+                    || selectedBelow == 0 && totalBelow == pntSet.size() - subset.size()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Test
+    public void testSeparateMatchesCounting() {
+        for (PointSet pntSet : readAll("otypes06.b08")) {
+            ArrayList<PointSet> nonSeparable = new ArrayList<PointSet>();
+            for (PointSet subset : pntSet.genSubsets()) {
+                boolean separable = pntSet.separate(subset);
+                assertEquals(separateReference(pntSet, subset), separable);
+                if (!separable) {
+                    nonSeparable.add(subset);
+                }
+            }
+            // the census finds the same subsets in the same order
+            ArrayList<PointSet> census = pntSet.getNonTwoSeparable();
+            assertEquals(nonSeparable.size(), census.size());
+            assertEquals(nonSeparable.size(), pntSet.nonTwoSeparableMasks().cardinality());
+            for (int i = 0; i < census.size(); i++) {
+                assertEquals(new ArrayList<Point>(nonSeparable.get(i)), new ArrayList<Point>(census.get(i)));
+            }
+        }
+    }
+
+    @Test
+    public void testFuzzerCheckpoint() throws IOException {
+        PointSet initial = withObjects(readAll("otypes07.b08").get(42));
+        PointSetFuzzer fuzzer = new PointSetFuzzer(initial, 7);
+        PointSetFuzzer again = new PointSetFuzzer(initial.copy(), 7);
+        for (int i = 0; i < 250; i++) {
+            fuzzer.nextPointSet();
+            again.nextPointSet();
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        fuzzer.writeState(new DataOutputStream(bytes));
+        // a fuzzer restored from the state continues with the same point sets, the
+        // initial set of the restored fuzzer does not matter
+        PointSetFuzzer restored = new PointSetFuzzer(initial.copy(), 1);
+        restored.readState(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+        for (int i = 0; i < 250; i++) {
+            PointSet expected = fuzzer.nextPointSet();
+            // the same seed gives the same point sets
+            assertEquals(pointList(expected), pointList(again.nextPointSet()));
+            assertEquals(pointList(expected), pointList(restored.nextPointSet()));
+        }
+    }
+
+    ArrayList<Float> pointList(PointSet pntSet) {
+        ArrayList<Float> coordinates = new ArrayList<Float>();
+        for (int i = 0; i < pntSet.size(); i++) {
+            coordinates.add(pntSet.getX(i));
+            coordinates.add(pntSet.getY(i));
+        }
+        return coordinates;
+    }
+
+    @Test
+    public void testUtilsMaskOverloads() {
+        // the mask overloads on compact sets agree with the point object overloads
+        ArrayList<PointSet> sets = readAll("otypes07.b08");
+        for (int i = 0; i < 22; i++) {
+            PointSet compact = sets.get(i);
+            PointSet objects = withObjects(compact);
+            for (long mask = 0; mask < 1L << compact.size(); mask++) {
+                PointSet sub = objects.subset(mask);
+                assertEquals(Utils.isCaratheodory(objects, sub), Utils.isCaratheodory(compact, mask));
+                assertEquals(Utils.isTverberg(objects, sub), Utils.isTverberg(compact, mask));
+                assertTrue(compact.isCompact());
+            }
+        }
+    }
+}
@@ -0,0 +1,68 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import com.separability.geometry.Canvas;
+import com.separability.geometry.Point;
+import com.separability.geometry.PointSet;
+import com.separability.geometry.Subsets;
+
+// headless tests, these do not start a sketch
+public class SubsetsTest {
+
+    @Test
+    public void testGrayCode() {
+        BitSet seen = new BitSet();
+        long[] previous = { 0 };
+        assertTrue(Subsets.forEachGray(10, mask -> {
+            assertFalse(seen.get((int) mask));
+            seen.set((int) mask);
+            assertTrue(mask == 0 || Long.bitCount(mask ^ previous[0]) == 1);
+            previous[0] = mask;
+            return true;
+        }));
+        assertEquals(1 << 10, seen.cardinality());
+    }
+
+    @Test
+    public void testOfSizeAndEarlyTermination() {
+        int[] count = { 0 };
+        assertTrue(Subsets.forEachOfSize(12, 5, mask -> {
+            assertEquals(5, Long.bitCount(mask));
+            count[0] += 1;
+            return true;
+        }));
+        assertEquals(792, count[0]);
+        count[0] = 0;
+        assertFalse(Subsets.forEach(40, mask -> ++count[0] < 100));
+        assertEquals(100, count[0]);
+        assertEquals(1 << 12, Subsets.stream(12).count());
+    }
+
+    @Test
+    public void testLargerThanGenSubsets() {
+        // genSubsets stops at 18 points, the census does not
+        Random rnd = new Random(3);
+        ArrayList<Point> pnts = new ArrayList<Point>();
+        for (int i = 0; i < 20; i++) {
+            pnts.add(new Point(rnd.nextInt(1000), rnd.nextInt(1000)));
+        }
+        PointSet pntSet = new PointSet(new Canvas(1000, 1000), pnts);
+        assertTrue(pntSet.genSubsets().isEmpty());
+        assertEquals(pntSet.nonTwoSeparableMasks().cardinality(), pntSet.getNonTwoSeparable().size());
+        // check the first few subsets directly
+        int[] count = { 0 };
+        assertFalse(pntSet.forEachNonTwoSeparable(mask -> {
+            PointSet sub = pntSet.subset(mask);
+            assertEquals(mask, pntSet.mask(sub));
+            assertFalse(pntSet.separate(sub));
+            return ++count[0] < 10;
+        }));
+    }
+}
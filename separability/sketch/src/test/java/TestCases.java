@@ -13,9 +13,11 @@ import java.util.stream.Stream;
 import org.junit.Test;
 
 import com.separability.Utils;
+import com.separability.geometry.Canvas;
 import com.separability.geometry.Point;
 import com.separability.geometry.PointSet;
 import com.separability.geometry.PointSetFamily;
+import com.separability.gui.Renderer;
 
 import processing.core.PApplet;
 
@@ -68,7 +70,7 @@ public class TestCases {
         if (!filename.startsWith("notalpha") || filename.startsWith("notalphanotsep")) {
             return;
         }
-        points.load(sketch, "points/" + filename);
+        points.load(new Canvas(sketch.width, sketch.height), "points/" + filename);
         ArrayList<DrawTask> tasks = new ArrayList<DrawTask>();
         for (int i = 0; i < points.size(); i++) {
             PointSet pntSet = points.get(i);
@@ -77,7 +79,7 @@ public class TestCases {
                 pnt.setColor(col);
                 pnt.setSize(10f);
                 tasks.add(() -> {
-                    pnt.show();
+                    Renderer.show(sketch, pnt);
                 });
             }
         }